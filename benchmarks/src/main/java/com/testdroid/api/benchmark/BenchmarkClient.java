@@ -0,0 +1,53 @@
+package com.testdroid.api.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.dto.Context;
+import okhttp3.HttpUrl;
+import okhttp3.RequestBody;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Exposes protected hot paths of the client to benchmarks.
+ */
+class BenchmarkClient extends APIKeyClient {
+
+    BenchmarkClient(String cloudUrl) {
+        super(cloudUrl, "key");
+    }
+
+    <T extends APIEntity> String url(String url, Context<T> context) {
+        return buildUrl(url, context);
+    }
+
+    HttpUrl httpUrl(String uri, Context<?> context) {
+        return buildHttpUrl(uri, context);
+    }
+
+    <T> T parse(InputStream inputStream, TypeReference<T> type) throws APIException {
+        return fromJson(inputStream, type);
+    }
+
+    static RequestBody form(Map<String, Object> map) {
+        return buildFromMap(map);
+    }
+
+    static String uri(String preUri, String postUri) {
+        return Entity.uri(preUri, postUri);
+    }
+
+    private static final class Entity extends APIEntity {
+
+        private static String uri(String preUri, String postUri) {
+            return createUri(preUri, postUri);
+        }
+
+        @Override
+        protected <T extends APIEntity> void clone(T from) {
+        }
+    }
+}
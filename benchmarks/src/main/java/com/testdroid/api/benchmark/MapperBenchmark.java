@@ -0,0 +1,81 @@
+package com.testdroid.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.model.APITestRun;
+import com.testdroid.api.model.APIUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of {@link APIEntity#OBJECT_MAPPER} with {@link APIEntity#createHighThroughputMapper()}.
+ * Run with <code>-prof gc</code> to compare allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    public enum Entity {
+        TEST_RUN(APITestRun.class),
+        DEVICE_SESSION(APIDeviceSession.class),
+        USER(APIUser.class);
+
+        private final Class<? extends APIEntity> type;
+
+        Entity(Class<? extends APIEntity> type) {
+            this.type = type;
+        }
+
+        private String payload() {
+            return switch (this) {
+                case TEST_RUN -> Payloads.testRun();
+                case DEVICE_SESSION -> Payloads.deviceSession(1);
+                case USER -> Payloads.user();
+            };
+        }
+    }
+
+    @Param({"TEST_RUN", "DEVICE_SESSION", "USER"})
+    public Entity entity;
+
+    @Param({"default", "highThroughput"})
+    public String mapper;
+
+    private byte[] content;
+
+    private ObjectReader reader;
+
+    private ObjectWriter writer;
+
+    private Object value;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = "highThroughput".equals(mapper) ?
+                APIEntity.createHighThroughputMapper() : APIEntity.OBJECT_MAPPER;
+        content = entity.payload().getBytes(StandardCharsets.UTF_8);
+        reader = objectMapper.readerFor(entity.type);
+        writer = objectMapper.writerFor(entity.type);
+        value = reader.readValue(content);
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        return reader.readValue(content);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return writer.writeValueAsBytes(value);
+    }
+}
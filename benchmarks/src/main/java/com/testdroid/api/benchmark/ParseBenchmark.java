@@ -0,0 +1,44 @@
+package com.testdroid.api.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIList;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.util.TypeReferenceFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of device session pages by the client, from a stream like response bodies are read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    public int size;
+
+    private final BenchmarkClient client = new BenchmarkClient("https://cloud.bitbar.com");
+
+    private final TypeReference<APIList<APIDeviceSession>> type = TypeReferenceFactory
+            .getListTypeRef(APIDeviceSession.class);
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = Payloads.deviceSessions(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public APIList<APIDeviceSession> fromJson() throws APIException {
+        return client.parse(new ByteArrayInputStream(content), type);
+    }
+}
@@ -0,0 +1,69 @@
+package com.testdroid.api.benchmark;
+
+/**
+ * Synthetic JSON payloads shaped like API responses.
+ */
+public final class Payloads {
+
+    private Payloads() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String deviceSessions(int count) {
+        StringBuilder builder = list(count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(deviceSession(i));
+        }
+        return builder.append("]}").toString();
+    }
+
+    public static String deviceSession(int id) {
+        return "{\"id\":" + id + ",\"createTime\":1700000000000,\"startTime\":1700000001000"
+                + ",\"endTime\":1700000060000,\"state\":\"SUCCEEDED\",\"type\":\"AUTOMATIC\""
+                + ",\"testCaseAllCount\":42,\"testCaseSuccessCount\":40,\"testCaseFailedCount\":2"
+                + ",\"billable\":true,\"deviceTime\":59000,\"duration\":59000,\"testRunId\":1234"
+                + ",\"projectId\":56,\"successRatio\":0.95,\"projectName\":\"project\",\"testRunName\":\"run " + id
+                + "\",\"userId\":7,\"userEmail\":\"user@example.com\",\"accountId\":8"
+                + ",\"device\":" + device(id) + '}';
+    }
+
+    public static String devices(int count) {
+        StringBuilder builder = list(count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(device(i));
+        }
+        return builder.append("]}").toString();
+    }
+
+    public static String testRun() {
+        return "{\"id\":1234,\"createTime\":1700000000000,\"displayName\":\"run\",\"executionRatio\":0.5"
+                + ",\"finishedDeviceCount\":5,\"waitingDeviceCount\":0,\"runningDeviceCount\":5"
+                + ",\"deviceCount\":10,\"number\":3,\"projectId\":56,\"projectName\":\"project\""
+                + ",\"state\":\"RUNNING\",\"successRatio\":0.9,\"userId\":7,\"config\":{\"id\":99"
+                + ",\"frameworkId\":252,\"osType\":\"ANDROID\",\"deviceGroupId\":11,\"timeout\":600}}";
+    }
+
+    public static String user() {
+        return "{\"id\":7,\"email\":\"user@example.com\",\"name\":\"User\",\"accountId\":8"
+                + ",\"createTime\":1700000000000,\"enabled\":true,\"timeZone\":\"UTC\",\"dateFormat\":\"yyyy-MM-dd\""
+                + ",\"roles\":[{\"id\":1,\"name\":\"USER\"}]}";
+    }
+
+    private static String device(int id) {
+        return "{\"id\":" + id + ",\"displayName\":\"Device " + id + "\",\"manufacturer\":\"Vendor\""
+                + ",\"osType\":\"ANDROID\",\"platform\":\"ANDROID\",\"online\":true,\"locked\":false"
+                + ",\"enabled\":true,\"creditsPrice\":1,\"imageWidth\":1080,\"imageHeight\":1920"
+                + ",\"softwareVersion\":{\"id\":30,\"apiLevel\":30,\"releaseVersion\":\"11\"}}";
+    }
+
+    private static StringBuilder list(int count) {
+        return new StringBuilder(count * 700).append("{\"offset\":0,\"limit\":").append(count)
+                .append(",\"total\":").append(count).append(",\"data\":[");
+    }
+}
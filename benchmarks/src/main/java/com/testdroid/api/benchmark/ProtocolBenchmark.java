@@ -0,0 +1,78 @@
+package com.testdroid.api.benchmark;
+
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.ProtocolMode;
+import com.testdroid.api.model.APIUser;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures fan-out of concurrent asynchronous calls to a local server with simulated latency, over HTTP/1.1
+ * connections or multiplexed over HTTP/2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtocolBenchmark {
+
+    @Param({"HTTP_1_1", "HTTP_2_PRIOR_KNOWLEDGE"})
+    public ProtocolMode protocolMode;
+
+    @Param({"64", "256"})
+    public int concurrency;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    private MockWebServer server;
+
+    private APIKeyClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        String user = Payloads.user();
+        server = new MockWebServer();
+        server.setProtocols(protocolMode == ProtocolMode.HTTP_1_1 ? List.of(Protocol.HTTP_1_1) :
+                List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(user)
+                        .setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        client = new APIKeyClient(server.url("/").toString(), "key");
+        client.setProtocolMode(protocolMode);
+        client.setMaxRequests(concurrency);
+        client.setMaxRequestsPerHost(concurrency);
+        client.setConnectionPool(concurrency, 5, TimeUnit.MINUTES);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public Object fanOut() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            calls[i] = client.getAsync("/me", APIUser.class);
+        }
+        return CompletableFuture.allOf(calls).join();
+    }
+}
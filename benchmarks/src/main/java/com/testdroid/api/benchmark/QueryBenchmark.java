@@ -0,0 +1,102 @@
+package com.testdroid.api.benchmark;
+
+import com.testdroid.api.APISort;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.Operand;
+import com.testdroid.api.filter.FilterEntry;
+import com.testdroid.api.model.APIDeviceSession;
+import okhttp3.HttpUrl;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.apache.commons.collections4.MultiValuedMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdroid.api.dto.MappingKey.*;
+
+/**
+ * Measures building of list query parameters, URLs and form bodies of a typical device sessions request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final String BASE_URL = "https://cloud.bitbar.com/api/v2/users/1/projects/2/runs/3";
+
+    private final BenchmarkClient client = new BenchmarkClient("https://cloud.bitbar.com");
+
+    private Context<APIDeviceSession> context;
+
+    private FilterEntry filter;
+
+    private APISort sort;
+
+    private Map<String, Object> form;
+
+    @Setup
+    public void setUp() {
+        filter = new FilterEntry(STATE, Operand.IN, List.of("SUCCEEDED", "FAILED", "WARNING"));
+        sort = APISort.create(List.of(new APISort.SortItem(CREATE_TIME, APISort.Type.DESC),
+                new APISort.SortItem(ID, APISort.Type.ASC)));
+        context = new Context<>(APIDeviceSession.class)
+                .setOffset(100)
+                .setLimit(50)
+                .setSearch("galaxy s23")
+                .addFilter(filter)
+                .addFilter(new FilterEntry(CREATE_TIME, Operand.AFTER, 1_700_000_000_000L))
+                .setSort(sort);
+        form = new LinkedHashMap<>();
+        form.put("name", "Regression run #42");
+        form.put("projectId", 123L);
+        form.put("deviceIds[]", List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+        form.put("timeout", 600);
+        form.put("comment", "a&b=c d");
+    }
+
+    @Benchmark
+    public MultiValuedMap<String, Object> contextBuild() {
+        return context.build();
+    }
+
+    @Benchmark
+    public String buildUrl() {
+        return client.url(BASE_URL + "/device-sessions", context);
+    }
+
+    @Benchmark
+    public HttpUrl buildHttpUrl() {
+        return client.httpUrl("/users/1/projects/2/runs/3/device-sessions", context);
+    }
+
+    @Benchmark
+    public String filterEntryToString() {
+        return filter.toString();
+    }
+
+    @Benchmark
+    public String sortSerialize() {
+        return sort.serialize();
+    }
+
+    @Benchmark
+    public String createUri() {
+        return BenchmarkClient.uri("/users/1/projects/2/runs/3", "/device-sessions");
+    }
+
+    @Benchmark
+    public long buildFromMap() throws IOException {
+        RequestBody body = BenchmarkClient.form(form);
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.size();
+    }
+}
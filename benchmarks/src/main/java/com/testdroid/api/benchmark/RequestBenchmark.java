@@ -0,0 +1,60 @@
+package com.testdroid.api.benchmark;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.APIList;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.mock.MockCloudData;
+import com.testdroid.api.mock.MockCloudServer;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.model.APIUser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures full request path of the client, from building the request to parsing the entity, against
+ * {@link MockCloudServer} running in the same JVM. Reported allocation includes the server side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private MockCloudServer server;
+
+    private APIKeyClient client;
+
+    private Context<APIDeviceSession> context;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockCloudServer(new MockCloudData().setProjects(10).setRunsPerProject(10).setSessionsPerRun(10))
+                .start();
+        client = server.createClient();
+        context = new Context<>(APIDeviceSession.class).setLimit(pageSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public APIUser me() throws APIException {
+        return client.me();
+    }
+
+    @Benchmark
+    public APIList<APIDeviceSession> listDeviceSessions() throws APIException {
+        return client.get("/me/device-sessions", context);
+    }
+}
@@ -0,0 +1,82 @@
+package com.testdroid.api.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.testdroid.api.APIList;
+import com.testdroid.api.model.APIDevice;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.util.SerializationRegistry;
+import com.testdroid.api.util.TypeReferenceFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdroid.api.APIEntity.OBJECT_MAPPER;
+
+/**
+ * Compares per call type resolution of <code>OBJECT_MAPPER.readValue(content, type)</code> with readers and
+ * writers cached by {@link SerializationRegistry}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"20", "1000"})
+    public int size;
+
+    private String deviceSessions;
+
+    private String devices;
+
+    private APIDeviceSession deviceSession;
+
+    private final TypeReference<APIList<APIDeviceSession>> deviceSessionsType = TypeReferenceFactory
+            .getListTypeRef(APIDeviceSession.class);
+
+    private final TypeReference<APIList<APIDevice>> devicesType = TypeReferenceFactory.getListTypeRef(APIDevice.class);
+
+    @Setup
+    public void setUp() throws IOException {
+        deviceSessions = Payloads.deviceSessions(size);
+        devices = Payloads.devices(size);
+        deviceSession = OBJECT_MAPPER.readValue(Payloads.deviceSessions(1), deviceSessionsType).getData().get(0);
+        SerializationRegistry.warmUp();
+    }
+
+    @Benchmark
+    public APIList<APIDeviceSession> readDeviceSessionsWithMapper() throws IOException {
+        return OBJECT_MAPPER.readValue(deviceSessions, deviceSessionsType);
+    }
+
+    @Benchmark
+    public APIList<APIDeviceSession> readDeviceSessionsWithRegistry() throws IOException {
+        ObjectReader reader = SerializationRegistry.getReader(deviceSessionsType);
+        return reader.readValue(deviceSessions);
+    }
+
+    @Benchmark
+    public APIList<APIDevice> readDevicesWithMapper() throws IOException {
+        return OBJECT_MAPPER.readValue(devices, devicesType);
+    }
+
+    @Benchmark
+    public APIList<APIDevice> readDevicesWithRegistry() throws IOException {
+        ObjectReader reader = SerializationRegistry.getReader(devicesType);
+        return reader.readValue(devices);
+    }
+
+    @Benchmark
+    public byte[] writeDeviceSessionWithMapper() throws IOException {
+        return OBJECT_MAPPER.writeValueAsBytes(deviceSession);
+    }
+
+    @Benchmark
+    public byte[] writeDeviceSessionWithRegistry() throws IOException {
+        return SerializationRegistry.getWriter(APIDeviceSession.class).writeValueAsBytes(deviceSession);
+    }
+}
@@ -1,21 +1,25 @@
 package com.testdroid.api;
 
 import com.testdroid.api.dto.Context;
+import com.testdroid.api.download.DownloadOptions;
 import com.testdroid.api.model.APIDevice;
 import com.testdroid.api.model.APIDeviceProperty;
 import com.testdroid.api.model.APILabelGroup;
 import com.testdroid.api.model.APIUser;
+import com.testdroid.api.upload.StreamingRequestBody;
 import okhttp3.Response;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * @author Łukasz Kajda <lukasz.kajda@bitbar.com>
  */
-public interface APIClient {
+public interface APIClient extends Closeable {
 
     /**
      * Sets establish connection timeout for APIClient requests.
@@ -88,6 +92,40 @@ public interface APIClient {
             String uri, String contentType, File file, Map<String, String> fileExtraParams, Class<T> type)
             throws APIException;
 
+    /**
+     * Calls POST request to API, uploading the body as multipart file without buffering it in memory. Default
+     * implementation, kept for implementations written before this method was added, does not support it.
+     *
+     * @param <T>             expected result class to be parsed from response
+     * @param uri             context URI of the resource (without <code>/api/v2</code> prefix)
+     * @param body            streamed content of the file, with its name and content type
+     * @param fileExtraParams extra parameters for form-data describing the file
+     * @param type            expected result class to be parsed from response
+     * @return object defined as <code>T</code> if successfully returned and parsed
+     * @throws APIException on any problem related to API communication
+     * @throws UnsupportedOperationException if the implementation does not support streamed uploads
+     */
+    default <T extends APIEntity> T postFile(
+            String uri, StreamingRequestBody body, Map<String, String> fileExtraParams, Class<T> type)
+            throws APIException {
+        throw new UnsupportedOperationException("Streamed upload is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Downloads the resource to the file, resuming the transfer with <code>Range</code> requests after failures.
+     * Default implementation, kept for implementations written before this method was added, does not support it.
+     *
+     * @param uri     context URI of the resource (without <code>/api/v2</code> prefix)
+     * @param target  file to write, its content is replaced
+     * @param options attempts, parallel ranges and expected size of the download
+     * @return size of the downloaded file
+     * @throws APIException on any problem related to API communication or when the size does not match
+     * @throws UnsupportedOperationException if the implementation does not support resumable downloads
+     */
+    default long download(String uri, Path target, DownloadOptions options) throws APIException {
+        throw new UnsupportedOperationException("Resumable download is not supported by " + getClass().getName());
+    }
+
     /**
      * Calls DELETE request to API
      *
@@ -113,4 +151,12 @@ public interface APIClient {
 
     Response getHttpResponse(String uri, Context<?> context) throws APIException;
 
+    /**
+     * Releases http resources held by this client - pooled connections and dispatcher threads. Default
+     * implementation does nothing.
+     */
+    @Override
+    default void close() {
+    }
+
 }
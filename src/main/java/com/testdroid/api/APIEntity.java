@@ -1,17 +1,22 @@
 package com.testdroid.api;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.testdroid.api.dto.Context;
+import com.testdroid.api.download.DownloadOptions;
 import com.testdroid.api.serialization.level.Log4jLevelModule;
+import com.testdroid.api.upload.StreamingRequestBody;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Map;
 
 import static com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator.Feature.WRITE_XML_DECLARATION;
@@ -22,16 +27,11 @@ import static com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator.Feature.WR
  */
 public abstract class APIEntity {
 
-    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    public static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
 
     public static final XmlMapper XML_MAPPER = new XmlMapper();
 
     static {
-        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        OBJECT_MAPPER.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
-        OBJECT_MAPPER.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
-        OBJECT_MAPPER.registerModule(new JavaTimeModule());
-        OBJECT_MAPPER.registerModule(new Log4jLevelModule());
         XML_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         XML_MAPPER.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
         XML_MAPPER.registerModule(new JavaTimeModule());
@@ -40,6 +40,33 @@ public abstract class APIEntity {
         XML_MAPPER.configure(ToXmlGenerator.Feature.WRITE_NULLS_AS_XSI_NIL, true);
     }
 
+    /**
+     * Creates new mapper configured the same way as {@link #OBJECT_MAPPER}.
+     */
+    public static ObjectMapper createObjectMapper() {
+        return configure(new ObjectMapper());
+    }
+
+    /**
+     * Creates new mapper configured the same way as {@link #OBJECT_MAPPER}, tuned for throughput: properties are
+     * accessed with lambdas generated by {@link BlackbirdModule} instead of reflection, and field names are not
+     * passed to <code>String.intern()</code>, they are still canonicalized by the parser's symbol table.
+     * Opt in with {@link com.testdroid.api.util.SerializationRegistry#setObjectMapper(ObjectMapper)}.
+     */
+    public static ObjectMapper createHighThroughputMapper() {
+        JsonFactory factory = JsonFactory.builder().disable(JsonFactory.Feature.INTERN_FIELD_NAMES).build();
+        return configure(new ObjectMapper(factory)).registerModule(new BlackbirdModule());
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+        mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new Log4jLevelModule());
+        return mapper;
+    }
+
     protected APIClient client;
 
     protected Long id;
@@ -126,6 +153,14 @@ public abstract class APIEntity {
         return client.postFile(uri, contentType, file, fileExtraParams, type);
     }
 
+    @JsonIgnore
+    protected <T extends APIEntity> T postFile(
+            String uri, StreamingRequestBody body, Map<String, String> fileExtraParams, Class<T> type)
+            throws APIException {
+        checkClient(client);
+        return client.postFile(uri, body, fileExtraParams, type);
+    }
+
     @JsonIgnore
     protected void deleteResource(String uri) throws APIException {
         checkClient(client);
@@ -138,6 +173,12 @@ public abstract class APIEntity {
         return client.get(uri);
     }
 
+    @JsonIgnore
+    protected long downloadFile(String uri, Path target, DownloadOptions options) throws APIException {
+        checkClient(client);
+        return client.download(uri, target, options);
+    }
+
     @JsonIgnore
     public void refresh() throws APIException {
         checkClient(client);
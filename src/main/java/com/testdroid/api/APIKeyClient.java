@@ -40,6 +40,11 @@ public class APIKeyClient extends AbstractAPIClient {
         this.proxyPassword = proxyPassword;
     }
 
+    @Override
+    protected String getCacheScope() {
+        return apiKey;
+    }
+
     protected Interceptor getInterceptor() {
         return chain -> chain.proceed(chain.request().newBuilder()
                 .addHeader("Authorization", Credentials.basic(apiKey, EMPTY))
@@ -90,7 +90,7 @@ public class APIList<T extends APIEntity> extends APIEntity {
         if (!isNextAvailable()) {
             return null;
         }
-        return new APIListResource<>(client, selfURI, context.setOffset(offset + limit)).getEntity();
+        return new APIListResource<>(client, selfURI, context.copy().setOffset(offset + limit)).getEntity();
     }
 
     private boolean isPreviousAvailable() {
@@ -102,7 +102,7 @@ public class APIList<T extends APIEntity> extends APIEntity {
         if (!isPreviousAvailable()) {
             return null;
         }
-        return new APIListResource<>(client, selfURI, context.setOffset(offset - limit)).getEntity();
+        return new APIListResource<>(client, selfURI, context.copy().setOffset(offset - limit)).getEntity();
     }
 
     /**
@@ -2,6 +2,19 @@ package com.testdroid.api;
 
 import com.testdroid.api.dto.Context;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * @author Łukasz Kajda <lukasz.kajda@bitbar.com>
  * @author Slawomir Pawluk <slawomir.pawluk@bitbar.com>
@@ -27,7 +40,48 @@ public class APIListResource<T extends APIEntity> {
     }
 
     public APIList<T> getEntity() throws APIException {
-        APIList<T> entity = client.get(resourceURI, context);
+        return getEntity(context);
+    }
+
+    APIList<T> getEntity(Context<T> pageContext) throws APIException {
+        return attach(client.get(resourceURI, pageContext), pageContext);
+    }
+
+    boolean isAsync() {
+        return client instanceof AsyncAPIClient;
+    }
+
+    /**
+     * Requests the page with {@link AsyncAPIClient} if no executor is given, blocking requests are run by the
+     * executor otherwise.
+     */
+    CompletableFuture<APIList<T>> getEntityAsync(Context<T> pageContext, Executor executor) {
+        if (executor == null && client instanceof AsyncAPIClient asyncClient) {
+            CompletableFuture<APIList<T>> source = asyncClient.getAsync(resourceURI, pageContext);
+            CompletableFuture<APIList<T>> result = source.thenApply(entity -> attach(entity, pageContext));
+            result.whenComplete((entity, throwable) -> {
+                if (result.isCancelled()) {
+                    source.cancel(true);
+                }
+            });
+            return result;
+        }
+        Supplier<APIList<T>> supplier = () -> {
+            try {
+                return getEntity(pageContext);
+            } catch (APIException e) {
+                throw new APIRuntimeException(e);
+            }
+        };
+        return CompletableFuture.supplyAsync(supplier, Objects.requireNonNull(executor,
+                "Executor is required for clients without asynchronous calls"));
+    }
+
+    /**
+     * Sets client, self URI and context of the list and its items, so they can be refreshed and paged.
+     */
+    private APIList<T> attach(APIList<T> entity, Context<T> pageContext) {
+        entity.setContext(pageContext.copy());
         for (APIEntity item : entity.getData()) {
             item.client = this.client;
             item.selfURI = APIEntity.createUri(this.resourceURI, String.format("/%s", item.id));
@@ -44,50 +98,131 @@ public class APIListResource<T extends APIEntity> {
         return getEntity().getTotal();
     }
 
-    private boolean isNextAvailable() {
-        try {
-            APIList<T> list = getEntity();
-            return list.getOffset() + list.getLimit() < list.getTotal();
-        } catch (APIException ex) {
-            return false;
-        }
+    private boolean isNextAvailable(APIList<T> list) {
+        return list.getOffset() + list.getLimit() < list.getTotal();
     }
 
     /**
      * Returns resource with next page of items in that list.
-     * Should check with <code>isNextAvailable()</code> before calling this method.
      * If no next page is available, returns <code>null</code>.
      *
      * @throws APIException on any API errors.
      */
     public APIListResource<T> getNext() throws APIException {
-        if (!isNextAvailable()) {
+        APIList<T> list = getEntity();
+        if (!isNextAvailable(list)) {
             return null;
         }
-        APIList<T> list = getEntity();
-        return new APIListResource<>(client, resourceURI, context.setOffset(list.getOffset() + list.getLimit()));
+        return new APIListResource<>(client, resourceURI, context.copy().setOffset(list.getOffset() + list.getLimit()));
     }
 
-    private boolean isPreviousAvailable() {
-        try {
-            return getEntity().getOffset() > 0;
-        } catch (APIException ex) {
-            return false;
-        }
+    private boolean isPreviousAvailable(APIList<T> list) {
+        return list.getOffset() > 0;
     }
 
     /**
      * Returns resource with previous page of items in that list.
-     * Should check with <code>isPreviousAvailable()</code> before calling this method.
      * If no previous page is available, returns <code>null</code>.
      *
      * @throws APIException on any API errors.
      */
     public APIListResource<T> getPrevious() throws APIException {
-        if (!isPreviousAvailable()) {
+        APIList<T> list = getEntity();
+        if (!isPreviousAvailable(list)) {
             return null;
         }
-        APIList<T> list = getEntity();
-        return new APIListResource<>(client, resourceURI, context.setOffset(list.getOffset() - list.getLimit()));
+        return new APIListResource<>(client, resourceURI, context.copy().setOffset(list.getOffset() - list.getLimit()));
+    }
+
+    /**
+     * Returns iterator over all items of this list, starting from offset of the resource context.
+     * Pages are fetched lazily, one request per page, so at most one page is held in memory.
+     * API errors are thrown as {@link APIRuntimeException}.
+     */
+    public Iterator<T> iterator() {
+        return iterator(context.getLimit());
+    }
+
+    /**
+     * @param pageSize number of items fetched with a single request
+     * @see #iterator()
+     */
+    public Iterator<T> iterator(int pageSize) {
+        return new PageIterator(pageSize);
+    }
+
+    /**
+     * Returns sequential stream of all items of this list, backed by {@link #iterator()}.
+     */
+    public Stream<T> stream() {
+        return stream(context.getLimit());
+    }
+
+    /**
+     * @param pageSize number of items fetched with a single request
+     * @see #stream()
+     */
+    public Stream<T> stream(int pageSize) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(pageSize),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns sequential stream of all items of this list, with pages fetched ahead of the consumer. First page is
+     * fetched on the calling thread, remaining pages are requested concurrently with bounded parallelism and
+     * prefetch depth, each with its own copy of the context. Items are consumed by a single thread, the stream
+     * should not be made parallel. Closing the stream cancels pages requested ahead. API errors are thrown as
+     * {@link APIRuntimeException}.
+     *
+     * @param scan parallelism, prefetch depth, page size and ordering of the scan
+     */
+    public Stream<T> scan(ParallelScan scan) {
+        ParallelPageIterator<T> iterator = new ParallelPageIterator<>(this, context, scan);
+        int characteristics = scan.isOrdered() ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false)
+                .onClose(iterator::cancel);
+    }
+
+    private class PageIterator implements Iterator<T> {
+
+        private final Context<T> pageContext;
+
+        private Iterator<T> page = Collections.emptyIterator();
+
+        private boolean lastPage;
+
+        private PageIterator(int pageSize) {
+            this.pageContext = context.copy().setLimit(pageSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                fetchPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private void fetchPage() {
+            APIList<T> list;
+            try {
+                list = getEntity(pageContext);
+            } catch (APIException e) {
+                throw new APIRuntimeException(e);
+            }
+            List<T> data = list.getData();
+            int nextOffset = pageContext.getOffset() + data.size();
+            lastPage = data.isEmpty() || list.getTotal() == null || nextOffset >= list.getTotal();
+            pageContext.setOffset(nextOffset);
+            page = data.iterator();
+        }
     }
 }
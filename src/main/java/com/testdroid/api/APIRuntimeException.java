@@ -0,0 +1,17 @@
+package com.testdroid.api;
+
+/**
+ * Unchecked wrapper of {@link APIException}, thrown where checked exceptions are not allowed, e.g. from
+ * iterators and streams over API resources.
+ */
+public class APIRuntimeException extends RuntimeException {
+
+    public APIRuntimeException(APIException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized APIException getCause() {
+        return (APIException) super.getCause();
+    }
+}
@@ -5,13 +5,14 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @author Damian Sniezek <damian.sniezek@bitbar.com>
  */
 public class APISort {
 
+    private static final char ITEM_DELIMITER = ':';
+
     public enum Type {
         ASC("a"),
         DESC("d");
@@ -82,7 +83,20 @@ public class APISort {
     }
 
     public String serialize() {
-        return sorts.stream().map(SortItem::toString).collect(Collectors.joining(":"));
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the serialized form of this sort, as returned by {@link #serialize()}, to the builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        for (int i = 0; i < sorts.size(); i++) {
+            if (i > 0) {
+                builder.append(ITEM_DELIMITER);
+            }
+            sorts.get(i).appendTo(builder);
+        }
+        return builder;
     }
 
     public String toString() {
@@ -113,7 +127,11 @@ public class APISort {
 
         @Override
         public String toString() {
-            return String.format("%s_%s", column, type.getURLValue());
+            return appendTo(new StringBuilder()).toString();
+        }
+
+        public StringBuilder appendTo(StringBuilder builder) {
+            return builder.append(column).append('_').append(type.getURLValue());
         }
     }
 
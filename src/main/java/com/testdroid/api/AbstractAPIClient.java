@@ -1,18 +1,38 @@
 package com.testdroid.api;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.testdroid.api.cache.ResponseCache;
+import com.testdroid.api.compression.Compression;
+import com.testdroid.api.compression.CompressionInterceptor;
+import com.testdroid.api.compression.CompressionStatistics;
 import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.ContextQuery;
 import com.testdroid.api.dto.MappingKey;
 import com.testdroid.api.dto.Operand;
+import com.testdroid.api.download.DownloadOptions;
+import com.testdroid.api.download.RangeDownload;
 import com.testdroid.api.filter.FilterEntry;
+import com.testdroid.api.metrics.MetricsEventListener;
+import com.testdroid.api.metrics.MetricsListener;
 import com.testdroid.api.model.APIDevice;
 import com.testdroid.api.model.APIDeviceProperty;
 import com.testdroid.api.model.APILabelGroup;
 import com.testdroid.api.model.APIUser;
+import com.testdroid.api.retry.RetryPolicy;
+import com.testdroid.api.retry.RetryStatistics;
+import com.testdroid.api.throttle.RequestLimiter;
+import com.testdroid.api.upload.StreamingRequestBody;
+import com.testdroid.api.util.HeadCapturingInputStream;
+import com.testdroid.api.util.ProjectionFilter;
+import com.testdroid.api.util.SerializationRegistry;
 import com.testdroid.api.util.TypeReferenceFactory;
 import okhttp3.*;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,28 +41,42 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Proxy;
 import java.net.URLEncoder;
+import java.nio.file.Path;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.UnaryOperator;
 
-import static com.testdroid.api.APIEntity.OBJECT_MAPPER;
 import static java.net.HttpURLConnection.HTTP_CREATED;
+import static java.net.HttpURLConnection.HTTP_OK;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
 import static java.util.Optional.ofNullable;
+import static org.apache.commons.io.IOUtils.closeQuietly;
 import static org.apache.commons.lang3.StringUtils.*;
 
 /**
  * @author Michał Szpruta <michal.szpruta@bitbar.com>
  */
-public abstract class AbstractAPIClient implements APIClient {
+public abstract class AbstractAPIClient implements APIClient, AsyncAPIClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractAPIClient.class);
 
@@ -60,6 +94,16 @@ public abstract class AbstractAPIClient implements APIClient {
 
     private static final String FAILED_TO_EXECUTE_API_CALL_WITH_REASON = "Failed to execute API call: %s. Reason: %s";
 
+    protected static final int PARSE_ERROR_CONTENT_LIMIT = 1024;
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private static final String RANGE = "Range";
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String IDENTITY = "identity";
+
     private static final UnaryOperator<String> URL_ENCODE = s -> URLEncoder.encode(s, UTF_8);
 
     protected int clientConnectTimeout = 20000;
@@ -76,11 +120,86 @@ public abstract class AbstractAPIClient implements APIClient {
 
     protected String apiURL;
 
+    protected int connectionPoolMaxIdle = 5;
+
+    protected long connectionPoolKeepAlive = TimeUnit.MINUTES.toMillis(5);
+
+    protected ProtocolMode protocolMode = ProtocolMode.AUTO;
+
+    protected int maxRequests = 64;
+
+    protected int maxRequestsPerHost = 5;
+
+    private volatile BaseUrl baseUrl;
+
+    private ConnectionPool connectionPool;
+
+    private Dispatcher dispatcher;
+
+    private volatile OkHttpClient httpClient;
+
+    /**
+     * Guards the http client and its shared parts. Not a monitor, so virtual threads waiting for it are not pinned.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ResponseCache responseCache;
+
+    private Cache httpCache;
+
+    private volatile RetryPolicy retryPolicy = RetryPolicy.NEVER;
+
+    private final RetryStatistics retryStatistics = new RetryStatistics();
+
+    private volatile RequestLimiter requestLimiter;
+
+    private volatile MetricsListener metricsListener = MetricsListener.NOOP;
+
+    private volatile Compression compression = new Compression();
+
+    private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+
+    /**
+     * Returns the http client shared by all calls of this API client, so connections are kept alive between
+     * requests. It is built lazily and rebuilt only after timeouts or proxy settings change.
+     */
     protected final OkHttpClient getClient() {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        OkHttpClient client = httpClient;
+        if (client != null) {
+            return client;
+        }
+        lock.lock();
+        try {
+            if (httpClient == null) {
+                httpClient = buildClient().build();
+            }
+            return httpClient;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected OkHttpClient.Builder buildClient() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(connectionPoolMaxIdle, connectionPoolKeepAlive, TimeUnit.MILLISECONDS);
+        }
+        if (dispatcher == null) {
+            dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(getProtocols())
+                .cache(httpCache);
         if (skipCheckCertificate) {
             configureToIgnoreCertificate(builder);
         }
+        if (metricsListener != MetricsListener.NOOP) {
+            String basePath = ofNullable(HttpUrl.parse(apiURL)).map(HttpUrl::encodedPath).orElse(API_URI);
+            builder.eventListenerFactory(MetricsEventListener.factory(metricsListener, basePath));
+        }
         if (StringUtils.isNoneBlank(proxyUser, proxyPassword)) {
             builder.proxyAuthenticator((route, response) -> {
                 String credential = Credentials.basic(proxyUser, proxyPassword);
@@ -93,20 +212,230 @@ public abstract class AbstractAPIClient implements APIClient {
                         .addHeader("Accept", ACCEPT_HEADER)
                         .build()))
                 .addInterceptor(getInterceptor())
+                .addInterceptor(new CompressionInterceptor(compression, compressionStatistics))
                 .proxy(proxy)
                 .connectTimeout(clientConnectTimeout, TimeUnit.MILLISECONDS)
-                .readTimeout(clientRequestTimeout, TimeUnit.MILLISECONDS)
-                .build();
+                .readTimeout(clientRequestTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the shared http client, so the next call builds it again with current settings.
+     * Connection pool and dispatcher are kept, in-flight calls are not affected.
+     */
+    protected final void resetClient() {
+        lock.lock();
+        try {
+            httpClient = null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void setConnectTimeout(int timeout) {
-        clientConnectTimeout = timeout;
+        if (clientConnectTimeout != timeout) {
+            clientConnectTimeout = timeout;
+            resetClient();
+        }
     }
 
     @Override
     public void setRequestTimeout(int timeout) {
-        clientRequestTimeout = timeout;
+        if (clientRequestTimeout != timeout) {
+            clientRequestTimeout = timeout;
+            resetClient();
+        }
+    }
+
+    public void setProxy(Proxy proxy) {
+        this.proxy = ofNullable(proxy).orElse(Proxy.NO_PROXY);
+        resetClient();
+    }
+
+    public void setProxyCredentials(String proxyUser, String proxyPassword) {
+        this.proxyUser = proxyUser;
+        this.proxyPassword = proxyPassword;
+        resetClient();
+    }
+
+    /**
+     * Sets limits of the connection pool shared by all calls of this client.
+     *
+     * @param maxIdleConnections maximum number of idle connections kept in the pool
+     * @param keepAlive          time after which an idle connection is evicted
+     * @param unit               unit of <code>keepAlive</code>
+     */
+    public void setConnectionPool(int maxIdleConnections, long keepAlive, TimeUnit unit) {
+        lock.lock();
+        try {
+            connectionPoolMaxIdle = maxIdleConnections;
+            connectionPoolKeepAlive = unit.toMillis(keepAlive);
+            if (connectionPool != null) {
+                connectionPool.evictAll();
+                connectionPool = null;
+            }
+            resetClient();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ProtocolMode getProtocolMode() {
+        return protocolMode;
+    }
+
+    /**
+     * Sets HTTP protocol used by this client. With HTTP/2 concurrent calls are multiplexed as streams over few
+     * connections, which are also coalesced between host names served by the same address and certificate.
+     * Raise {@link #setMaxRequestsPerHost(int)} to make use of it with asynchronous calls.
+     */
+    public void setProtocolMode(ProtocolMode protocolMode) {
+        this.protocolMode = ofNullable(protocolMode).orElse(ProtocolMode.AUTO);
+        resetClient();
+    }
+
+    /**
+     * Returns protocols of the http client. Explicit HTTP/2 modes fall back to HTTP/1.1 behind a proxy.
+     */
+    protected List<Protocol> getProtocols() {
+        boolean proxied = proxy.type() != Proxy.Type.DIRECT;
+        return switch (protocolMode) {
+            case AUTO -> List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+            case HTTP_1_1 -> List.of(Protocol.HTTP_1_1);
+            case HTTP_2 -> proxied ? List.of(Protocol.HTTP_1_1) : List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+            case HTTP_2_PRIOR_KNOWLEDGE -> proxied ? List.of(Protocol.HTTP_1_1) : List.of(Protocol.H2_PRIOR_KNOWLEDGE);
+        };
+    }
+
+    /**
+     * Sets maximum number of asynchronous calls executed at once, other calls are queued.
+     */
+    public void setMaxRequests(int maxRequests) {
+        lock.lock();
+        try {
+            this.maxRequests = maxRequests;
+            if (dispatcher != null) {
+                dispatcher.setMaxRequests(maxRequests);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets maximum number of asynchronous calls executed at once per host. Over HTTP/2 it is the number of
+     * concurrent streams, which the server may limit further.
+     */
+    public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        lock.lock();
+        try {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            if (dispatcher != null) {
+                dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets listener of call timings, response statuses and parse times, <code>null</code> disables metrics.
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = ofNullable(metricsListener).orElse(MetricsListener.NOOP);
+        resetClient();
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets accepted response encodings and compression of request bodies, <code>null</code> restores defaults.
+     */
+    public void setCompression(Compression compression) {
+        this.compression = ofNullable(compression).orElseGet(Compression::new);
+        resetClient();
+    }
+
+    public CompressionStatistics getCompressionStatistics() {
+        return compressionStatistics;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Sets in-memory cache of response bodies. Cache may be shared by many clients, entries are scoped by
+     * credentials. Only requests with cacheable context or of types opted in by the cache use it, and only if the
+     * client identifies its credentials with {@link #getCacheScope()}.
+     *
+     * @param responseCache cache to use, <code>null</code> disables caching
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Enables http cache on disk, used to revalidate expired cacheable responses with
+     * <code>ETag</code>/<code>Last-Modified</code> conditional requests.
+     *
+     * @param directory directory of the cache, should be used only by this client
+     * @param maxSize   maximum size of the cache in bytes
+     */
+    public void setHttpCache(File directory, long maxSize) {
+        lock.lock();
+        try {
+            closeHttpCache();
+            httpCache = new Cache(directory, maxSize);
+            resetClient();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels pending calls, shuts down the dispatcher and evicts all pooled connections.
+     * The client may still be used afterwards - a new pool and dispatcher are created on the next call.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeClient();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeClient() {
+        if (dispatcher != null) {
+            dispatcher.cancelAll();
+            dispatcher.executorService().shutdown();
+            dispatcher = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.evictAll();
+            connectionPool = null;
+        }
+        closeHttpCache();
+        httpClient = null;
+    }
+
+    private void closeHttpCache() {
+        if (httpCache != null) {
+            try {
+                httpCache.close();
+            } catch (IOException e) {
+                LOGGER.warn("Exception while closing http cache", e);
+            }
+            httpCache = null;
+        }
     }
 
     @Override
@@ -126,50 +455,126 @@ public abstract class AbstractAPIClient implements APIClient {
 
     protected abstract Interceptor getInterceptor();
 
+    /**
+     * Returns identifier of credentials used by this client, cached responses are not shared between scopes.
+     * Clients which do not identify their credentials return <code>null</code> and do not use the response cache.
+     */
+    protected String getCacheScope() {
+        return null;
+    }
+
     /**
      * Tries to call API once. Returns expected entity or throws exception.
      */
     protected <T extends APIEntity> T getOnce(String uri, Context<?> context, TypeReference<T> type)
             throws APIException {
-        try (Response response = getHttpResponse(uri, context)) {
-            T result = fromJson(Objects.requireNonNull(response.body()).string(), type);
-            result.client = this;
-            if (result.selfURI == null) {
-                result.selfURI = uri;
+        ResponseCache cache = findResponseCache(context, type);
+        Set<String> fields = getFields(context);
+        if (cache != null) {
+            Request request = buildCacheableRequest(uri, context);
+            String key = ResponseCache.key(getCacheScope(), request.url().toString());
+            byte[] body = cache.get(key);
+            if (body != null) {
+                return readCachedEntity(uri, body, type, fields);
             }
-            return result;
-        } catch (IOException | RuntimeException ex) {
-            throw new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
+            return execute(uri, () -> request, cachingHandler(uri, cache, key, type, fields));
         }
+        return execute(uri, () -> buildGetRequest(uri, context),
+                response -> readEntity(uri, response, type, fields));
     }
 
     protected InputStream getStream(String uri) throws APIException {
         try {
             return Objects.requireNonNull(getHttpResponse(uri, null).body()).byteStream();
         } catch (RuntimeException ex) {
-            throw new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
+            throw apiCallFailure(uri, ex);
         }
     }
 
     @Override
     public Response getHttpResponse(String uri, Context<?> context) throws APIException {
+        return execute(uri, () -> buildGetRequest(uri, context), response -> response);
+    }
+
+    protected Request buildGetRequest(String uri, Context<?> context) {
+        return buildGetRequest(uri, context, false);
+    }
+
+    @Override
+    public long download(String uri, Path target, DownloadOptions options) throws APIException {
+        return new RangeDownload((from, to) -> getRange(uri, from, to), options).run(target);
+    }
+
+    /**
+     * Returns response with bytes <code>from</code> - <code>to</code> of the resource, <code>to</code> equal
+     * to <code>-1</code> requests the rest of it. Range <code>0, -1</code> is requested without header. Content is
+     * requested without compression, so <code>Content-Length</code> of the response is the size of the resource,
+     * needed to verify and resume the download.
+     */
+    protected Response getRange(String uri, long from, long to) throws APIException {
+        return execute(uri, () -> {
+            Request.Builder builder = buildGetRequest(uri, null).newBuilder().header(ACCEPT_ENCODING, IDENTITY);
+            if (from > 0 || to >= 0) {
+                builder.header(RANGE, String.format("bytes=%d-%s", from, to < 0 ? EMPTY : to));
+            }
+            return builder.build();
+        }, response -> response);
+    }
+
+    protected Request buildGetRequest(String uri, Context<?> context, boolean cacheable) {
         //Fix for https://jira.bitbar.com/browse/TD-12086
         //caused by https://github.com/googleapis/google-http-java-client/issues/398
         //We should use pure Apache Http Client
-        uri = uri.replace("\\+", "%2B"); // TODO check if needed
+        String escapedUri = uri.replace("\\+", "%2B"); // TODO check if needed
+        Request.Builder builder = new Request.Builder().url(buildHttpUrl(escapedUri, context));
+        if (!cacheable && httpCache != null) {
+            // http cache serves only cacheable requests
+            builder.cacheControl(CacheControl.FORCE_NETWORK);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns response cache if the request should use it, <code>null</code> otherwise.
+     */
+    private ResponseCache findResponseCache(Context<?> context, TypeReference<?> type) {
+        ResponseCache cache = responseCache;
+        if (cache != null && getCacheScope() != null
+                && cache.isCacheable(context, context == null ? type.getType() : context.getType())) {
+            return cache;
+        }
+        return null;
+    }
+
+    private Request buildCacheableRequest(String uri, Context<?> context) throws APIException {
         try {
-            OkHttpClient client = getClient();
-            Request request = new Request.Builder().url(buildUrl(apiURL + uri, context)).build();
-            Response response = client.newCall(request).execute();
-            if (!response.isSuccessful()) {
-                throw getAPIException(response);
-            }
-            return response;
-        } catch (IOException ex) {
-            throw new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
+            return buildGetRequest(uri, context, true);
+        } catch (RuntimeException ex) {
+            throw apiCallFailure(uri, ex);
         }
     }
 
+    private <T extends APIEntity> ResponseHandler<T> cachingHandler(
+            String uri, ResponseCache cache, String key, TypeReference<T> type, Set<String> fields) {
+        return response -> {
+            byte[] body;
+            try (response) {
+                body = Objects.requireNonNull(response.body()).bytes();
+            }
+            cache.put(key, body);
+            return readCachedEntity(uri, body, type, fields);
+        };
+    }
+
+    private <T extends APIEntity> T readCachedEntity(
+            String uri, byte[] body, TypeReference<T> type, Set<String> fields) throws APIException {
+        return initEntity(uri, HTTP_OK, fromJson(new ByteArrayInputStream(body), type, fields));
+    }
+
+    private static Set<String> getFields(Context<?> context) {
+        return context == null ? emptySet() : context.getFields();
+    }
+
     @Override
     public <T extends APIEntity> T post(String uri, Object body, Class<T> type) throws APIException {
         return postOnce(uri, body, emptyMap(), null, TypeReferenceFactory.getTypeRef(type));
@@ -178,35 +583,15 @@ public abstract class AbstractAPIClient implements APIClient {
     protected <T extends APIEntity> T postOnce(
             String uri, Object body, Map<String, String> fileExtraParams, String contentType, TypeReference<T> type)
             throws APIException {
-        if (contentType == null) {
-            contentType = ACCEPT_HEADER;
-        }
-        try {
-            RequestBody requestBody = buildRequestBody(body, fileExtraParams, contentType);
-            OkHttpClient client = getClient();
-            Request request = new Request.Builder().url(apiURL + uri).post(requestBody).build();
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw getAPIException(response);
-                }
-                if (type != null) {
-                    T result = fromJson(Objects.requireNonNull(response.body()).string(), type);
-                    result.client = this;
-                    if (result.selfURI == null) {
-                        result.selfURI = uri;
-                        // In case of entity creation, we need to update its url
-                        if (response.code() == HTTP_CREATED && result.getId() != null) {
-                            result.selfURI += String.format("/%s", result.getId());
-                        }
-                    }
-                    return result;
-                } else {
-                    return null;
-                }
-            }
-        } catch (IOException ex) {
-            throw new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
-        }
+        return execute(uri, () -> buildPostRequest(uri, body, fileExtraParams, contentType),
+                response -> readEntity(uri, response, type));
+    }
+
+    protected Request buildPostRequest(String uri, Object body, Map<String, String> fileExtraParams, String contentType)
+            throws IOException {
+        RequestBody requestBody = buildRequestBody(body, fileExtraParams,
+                contentType == null ? ACCEPT_HEADER : contentType);
+        return new Request.Builder().url(apiURL + uri).post(requestBody).build();
     }
 
     @SuppressWarnings("rawtypes")
@@ -222,10 +607,19 @@ public abstract class AbstractAPIClient implements APIClient {
                 builder.addFormDataPart(entry.getKey(), entry.getValue());
             }
             requestBody = builder.build();
+        } else if (body instanceof StreamingRequestBody streamingBody) {
+            MultipartBody.Builder builder = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("file", streamingBody.getFileName(), streamingBody);
+            for (Map.Entry<String, String> entry : fileExtraParams.entrySet()) {
+                builder.addFormDataPart(entry.getKey(), entry.getValue());
+            }
+            requestBody = builder.build();
         } else if (body instanceof InputStream inputStream) {
-            requestBody = RequestBody.create(IOUtils.toByteArray(inputStream), mediaType);
+            requestBody = StreamingRequestBody.create(inputStream, null, contentType, -1);
         } else if (body instanceof APIEntity entity) {
-            requestBody = RequestBody.create(OBJECT_MAPPER.writeValueAsString(entity), APPLICATION_JSON);
+            requestBody = RequestBody.create(SerializationRegistry.getWriter(entity.getClass())
+                    .writeValueAsBytes(entity), APPLICATION_JSON);
         } else if (body instanceof RequestBody) {
             requestBody = (RequestBody) body;
         } else if (body instanceof Map map) {
@@ -268,23 +662,441 @@ public abstract class AbstractAPIClient implements APIClient {
         return postOnce(uri, file, fileExtraParams, contentType, TypeReferenceFactory.getTypeRef(type));
     }
 
+    @Override
+    public <T extends APIEntity> T postFile(
+            String uri, StreamingRequestBody body, Map<String, String> fileExtraParams, Class<T> type)
+            throws APIException {
+        return postOnce(uri, body, fileExtraParams, null, TypeReferenceFactory.getTypeRef(type));
+    }
+
     @Override
     public void delete(String uri) throws APIException {
         deleteOnce(uri);
     }
 
     protected void deleteOnce(String uri) throws APIException {
-        OkHttpClient client = getClient();
-        Request request = new Request.Builder().url(apiURL + uri).delete().build();
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
+        execute(uri, () -> buildDeleteRequest(uri), AbstractAPIClient::discard);
+    }
+
+    protected Request buildDeleteRequest(String uri) {
+        return new Request.Builder().url(apiURL + uri).delete().build();
+    }
+
+    @Override
+    public <T extends APIEntity> CompletableFuture<T> getAsync(String uri, Class<T> type) {
+        return getOnceAsync(uri, null, TypeReferenceFactory.getTypeRef(type));
+    }
+
+    @Override
+    public <T extends APIEntity> CompletableFuture<APIList<T>> getAsync(String uri, Context<T> context) {
+        return getOnceAsync(uri, context, TypeReferenceFactory.getListTypeRef(context.getType()));
+    }
+
+    protected <T extends APIEntity> CompletableFuture<T> getOnceAsync(
+            String uri, Context<?> context, TypeReference<T> type) {
+        ResponseCache cache = findResponseCache(context, type);
+        Set<String> fields = getFields(context);
+        if (cache != null) {
+            try {
+                Request request = buildCacheableRequest(uri, context);
+                String key = ResponseCache.key(getCacheScope(), request.url().toString());
+                byte[] body = cache.get(key);
+                if (body != null) {
+                    return CompletableFuture.completedFuture(readCachedEntity(uri, body, type, fields));
+                }
+                return executeAsync(uri, () -> request, cachingHandler(uri, cache, key, type, fields));
+            } catch (APIException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return executeAsync(uri, () -> buildGetRequest(uri, context),
+                response -> readEntity(uri, response, type, fields));
+    }
+
+    @Override
+    public CompletableFuture<Response> getHttpResponseAsync(String uri, Context<?> context) {
+        return executeAsync(uri, () -> buildGetRequest(uri, context), response -> response);
+    }
+
+    @Override
+    public <T extends APIEntity> CompletableFuture<T> postAsync(String uri, Object body, Class<T> type) {
+        TypeReference<T> typeRef = TypeReferenceFactory.getTypeRef(type);
+        return executeAsync(uri, () -> buildPostRequest(uri, body, emptyMap(), null),
+                response -> readEntity(uri, response, typeRef));
+    }
+
+    @Override
+    public <T extends APIEntity> CompletableFuture<T> postFileAsync(
+            String uri, String contentType, File file, Map<String, String> fileExtraParams, Class<T> type) {
+        TypeReference<T> typeRef = TypeReferenceFactory.getTypeRef(type);
+        return executeAsync(uri, () -> buildPostRequest(uri, file, fileExtraParams, contentType),
+                response -> readEntity(uri, response, typeRef));
+    }
+
+    @Override
+    public <T extends APIEntity> CompletableFuture<T> postFileAsync(
+            String uri, StreamingRequestBody body, Map<String, String> fileExtraParams, Class<T> type) {
+        TypeReference<T> typeRef = TypeReferenceFactory.getTypeRef(type);
+        return executeAsync(uri, () -> buildPostRequest(uri, body, fileExtraParams, null),
+                response -> readEntity(uri, response, typeRef));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String uri) {
+        return executeAsync(uri, () -> buildDeleteRequest(uri), AbstractAPIClient::discard);
+    }
+
+    @FunctionalInterface
+    protected interface RequestFactory {
+
+        Request create() throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface ResponseHandler<R> {
+
+        /**
+         * Handles successful response. Implementation has to close the response, unless it is returned as result.
+         */
+        R handle(Response response) throws IOException, APIException;
+    }
+
+    /**
+     * Executes the request on the calling thread, retrying it according to the retry policy.
+     * Unsuccessful responses are turned into {@link APIException}.
+     */
+    protected <R> R execute(String uri, RequestFactory requestFactory, ResponseHandler<R> handler)
+            throws APIException {
+        try {
+            Request request = requestFactory.create();
+            for (int attempt = 1; ; attempt++) {
+                RequestLimiter.Permit permit = acquirePermit(uri, request);
+                Response response = null;
+                Duration delay;
+                try {
+                    response = getClient().newCall(request).execute();
+                    delay = response.isSuccessful() ? null : getRetryDelay(uri, request, attempt, response);
+                } catch (IOException ex) {
+                    delay = getRetryDelay(uri, request, attempt, null);
+                    if (delay == null) {
+                        permit.release();
+                        throw ex;
+                    }
+                } catch (RuntimeException ex) {
+                    permit.release();
+                    throw ex;
+                }
+                if (delay == null) {
+                    return handleResponse(response, handler, permit);
+                }
+                try {
+                    if (response != null) {
+                        response.close();
+                    }
+                } finally {
+                    permit.release();
+                }
+                sleep(uri, delay);
+            }
+        } catch (IOException | RuntimeException ex) {
+            throw apiCallFailure(uri, ex);
+        }
+    }
+
+    /**
+     * Enqueues the request on the dispatcher of the shared http client, retries are scheduled without blocking
+     * any thread. Returned future completes with {@link APIException} on failure, cancelling the future cancels
+     * the http call.
+     */
+    protected <R> CompletableFuture<R> executeAsync(
+            String uri, RequestFactory requestFactory, ResponseHandler<R> handler) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        // call of the current attempt, the future cancels whichever attempt is running
+        AtomicReference<Call> currentCall = new AtomicReference<>();
+        future.whenComplete((result, throwable) -> {
+            Call call = currentCall.get();
+            if (future.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        try {
+            enqueue(uri, requestFactory.create(), handler, future, currentCall, 1);
+        } catch (IOException | RuntimeException ex) {
+            future.completeExceptionally(apiCallFailure(uri, ex));
+        }
+        return future;
+    }
+
+    private <R> void enqueue(
+            String uri, Request request, ResponseHandler<R> handler, CompletableFuture<R> future,
+            AtomicReference<Call> currentCall, int attempt) {
+        if (future.isDone()) {
+            return;
+        }
+        acquirePermitAsync(uri, request).whenComplete((permit, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                future.completeExceptionally(cause instanceof APIException ? cause : apiCallFailure(uri, cause));
+            } else if (future.isDone()) {
+                permit.release();
+            } else {
+                enqueue(uri, request, handler, future, currentCall, attempt, permit);
+            }
+        });
+    }
+
+    private <R> void enqueue(
+            String uri, Request request, ResponseHandler<R> handler, CompletableFuture<R> future,
+            AtomicReference<Call> currentCall, int attempt, RequestLimiter.Permit permit) {
+        Call apiCall = getClient().newCall(request);
+        currentCall.set(apiCall);
+        // the future may have been cancelled before the call was published
+        if (future.isCancelled()) {
+            apiCall.cancel();
+        }
+        apiCall.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                permit.release();
+                Duration delay = future.isDone() ? null : getRetryDelay(uri, request, attempt, null);
+                if (delay == null) {
+                    future.completeExceptionally(apiCallFailure(uri, e));
+                } else {
+                    retryLater(uri, request, handler, future, currentCall, attempt, delay);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    if (future.isDone()) {
+                        response.close();
+                        permit.release();
+                        return;
+                    }
+                    Duration delay = response.isSuccessful() ? null : getRetryDelay(uri, request, attempt, response);
+                    if (delay == null) {
+                        R result = handleResponse(response, handler, permit);
+                        // cancelled while the response was handled, nobody is going to close the result
+                        if (!future.complete(result) && result instanceof Closeable closeable) {
+                            closeQuietly(closeable);
+                        }
+                    } else {
+                        response.close();
+                        permit.release();
+                        retryLater(uri, request, handler, future, currentCall, attempt, delay);
+                    }
+                } catch (APIException e) {
+                    permit.release();
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    permit.release();
+                    future.completeExceptionally(apiCallFailure(uri, e));
+                }
+            }
+        });
+    }
+
+    public RequestLimiter getRequestLimiter() {
+        return requestLimiter;
+    }
+
+    /**
+     * Sets client side rate limiter and in-flight cap of API calls, <code>null</code> disables limiting.
+     */
+    public void setRequestLimiter(RequestLimiter requestLimiter) {
+        this.requestLimiter = requestLimiter;
+    }
+
+    private RequestLimiter.Permit acquirePermit(String uri, Request request) throws APIException {
+        RequestLimiter limiter = requestLimiter;
+        if (limiter == null) {
+            return RequestLimiter.Permit.NONE;
+        }
+        try {
+            return limiter.acquire(request.method(), uri);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw apiCallFailure(uri, ex);
+        }
+    }
+
+    private CompletableFuture<RequestLimiter.Permit> acquirePermitAsync(String uri, Request request) {
+        RequestLimiter limiter = requestLimiter;
+        return limiter == null ? CompletableFuture.completedFuture(RequestLimiter.Permit.NONE)
+                : limiter.acquireAsync(request.method(), uri);
+    }
+
+    private <R> void retryLater(
+            String uri, Request request, ResponseHandler<R> handler, CompletableFuture<R> future,
+            AtomicReference<Call> currentCall, int attempt, Duration delay) {
+        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> enqueue(uri, request, handler, future, currentCall, attempt + 1));
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets policy of repeating failed calls. By default calls are not retried.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = ofNullable(retryPolicy).orElse(RetryPolicy.NEVER);
+    }
+
+    public RetryStatistics getRetryStatistics() {
+        return retryStatistics;
+    }
+
+    /**
+     * Returns delay before next attempt of the request, <code>null</code> if it should not be retried.
+     *
+     * @param response failed response, <code>null</code> if attempt failed with I/O error
+     */
+    private Duration getRetryDelay(String uri, Request request, int attempt, Response response) {
+        RequestBody body = request.body();
+        Duration delay = null;
+        if (!isOneShot(body) && retryPolicy.isRetryable(request.method(), uri)) {
+            delay = response == null ? retryPolicy.getRetryDelay(attempt, null, null) : retryPolicy.getRetryDelay(
+                    attempt, response.code(), parseRetryAfter(response.header(RETRY_AFTER)));
+        }
+        if (delay != null) {
+            retryStatistics.recordRetry(delay);
+        } else if (attempt > 1) {
+            retryStatistics.recordExhausted();
+        }
+        return delay;
+    }
+
+    private static boolean isOneShot(RequestBody body) {
+        if (body instanceof MultipartBody multipartBody) {
+            return multipartBody.parts().stream().anyMatch(part -> part.body().isOneShot());
+        }
+        return body != null && body.isOneShot();
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(Instant.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
+    private static void sleep(String uri, Duration delay) throws APIException {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw apiCallFailure(uri, ex);
+        }
+    }
+
+    /**
+     * Handles the response holding the in-flight permit of the call. The permit is released when the handler
+     * returns, or when the body is closed if the handler returns the response itself.
+     */
+    private <R> R handleResponse(Response response, ResponseHandler<R> handler, RequestLimiter.Permit permit)
+            throws IOException, APIException {
+        if (permit == RequestLimiter.Permit.NONE) {
+            return handleResponse(response, handler);
+        }
+        Response guarded = releaseOnClose(response, permit);
+        R result = null;
+        try {
+            result = handleResponse(guarded, handler);
+            return result;
+        } finally {
+            if (result != guarded) {
+                permit.release();
+            }
+        }
+    }
+
+    private static Response releaseOnClose(Response response, RequestLimiter.Permit permit) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        Source source = new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    permit.release();
+                }
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(source), body.contentType(), body.contentLength())).build();
+    }
+
+    private <R> R handleResponse(Response response, ResponseHandler<R> handler) throws IOException, APIException {
+        if (!response.isSuccessful()) {
+            try (response) {
                 throw getAPIException(response);
             }
-        } catch (IOException ex) {
-            throw new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
+        }
+        return handler.handle(response);
+    }
+
+    /**
+     * Parses entity from the response and closes it. Sets client and self URI of the result like any other
+     * entity fetched by this client. Returns <code>null</code> if no type is expected.
+     */
+    private <T extends APIEntity> T readEntity(String uri, Response response, TypeReference<T> type)
+            throws IOException, APIException {
+        return readEntity(uri, response, type, emptySet());
+    }
+
+    /**
+     * Like {@link #readEntity(String, Response, TypeReference)}, but skips fields of listed entities which are not
+     * in non-empty <code>fields</code>.
+     */
+    private <T extends APIEntity> T readEntity(
+            String uri, Response response, TypeReference<T> type, Set<String> fields)
+            throws IOException, APIException {
+        try (response) {
+            if (type == null) {
+                return null;
+            }
+            return initEntity(uri, response.code(), fromJson(Objects.requireNonNull(response.body()).byteStream(),
+                    type, fields));
         }
     }
 
+    private <T extends APIEntity> T initEntity(String uri, int code, T result) {
+        result.client = this;
+        if (result.selfURI == null) {
+            result.selfURI = uri;
+            // In case of entity creation, we need to update its url
+            if (code == HTTP_CREATED && result.getId() != null) {
+                result.selfURI += String.format("/%s", result.getId());
+            }
+        }
+        return result;
+    }
+
+    private static Void discard(Response response) {
+        response.close();
+        return null;
+    }
+
+    private static APIException apiCallFailure(String uri, Throwable ex) {
+        return new APIException(String.format(FAILED_TO_EXECUTE_API_CALL_WITH_REASON, uri, ex.getMessage()), ex);
+    }
+
     @Override
     public APIUser me() throws APIException {
         return get("/me", APIUser.class);
@@ -325,41 +1137,96 @@ public abstract class AbstractAPIClient implements APIClient {
         return result;
     }
 
+    /**
+     * Parses content directly from the stream. On failure only first {@link #PARSE_ERROR_CONTENT_LIMIT} bytes
+     * of the content are reported in exception message.
+     */
     protected <T> T fromJson(InputStream inputStream, TypeReference<T> type) throws APIException {
+        return fromJson(inputStream, type, emptySet());
+    }
+
+    /**
+     * Parses content directly from the stream, binding only given <code>fields</code> of entities of the list if
+     * they are not empty, see {@link ProjectionFilter}.
+     */
+    protected <T> T fromJson(InputStream inputStream, TypeReference<T> type, Set<String> fields)
+            throws APIException {
+        HeadCapturingInputStream capturingStream = new HeadCapturingInputStream(inputStream, PARSE_ERROR_CONTENT_LIMIT);
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            return OBJECT_MAPPER.readValue(inputStream, type);
-        } catch (IOException e) {
-            try {
-                String content = IOUtils.toString(inputStream, UTF_8);
-                throw new APIException(String.format("Failed to parse response as %s: %s", type.getType().getTypeName(),
-                        content));
-            } catch (IOException ex) {
-                throw new APIException(String.format("Failed to parse response as %s", type.getType().getTypeName()));
+            ObjectReader reader = SerializationRegistry.getReader(type);
+            T result;
+            if (fields.isEmpty()) {
+                result = reader.readValue(capturingStream);
+            } else {
+                try (JsonParser parser = ProjectionFilter.filter(reader.createParser(capturingStream), fields)) {
+                    result = reader.readValue(parser);
+                }
             }
+            success = true;
+            return result;
+        } catch (IOException e) {
+            throw new APIException(String.format("Failed to parse response as %s: %s", type.getType().getTypeName(),
+                    capturingStream.getHead()), e);
+        } finally {
+            metricsListener.onParse(type.getType(), System.nanoTime() - start, success);
         }
     }
 
     protected <T> T fromJson(String content, TypeReference<T> type) throws APIException {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            return OBJECT_MAPPER.readValue(content, type);
+            T result = SerializationRegistry.getReader(type).readValue(content);
+            success = true;
+            return result;
         } catch (IOException e) {
             throw new APIException(String.format("Failed to parse response as %s: %s", type.getType().getTypeName(),
                     content));
+        } finally {
+            metricsListener.onParse(type.getType(), System.nanoTime() - start, success);
         }
     }
 
     protected <T extends APIEntity> String buildUrl(String url, Context<T> context) {
         HttpUrl.Builder builder = Objects.requireNonNull(HttpUrl.parse(url)).newBuilder();
         if (context != null) {
-            for (Map.Entry<String, Collection<Object>> entry : context.build().asMap().entrySet()) {
-                for (Object value : entry.getValue()) {
-                    builder.addQueryParameter(entry.getKey(), value == null ? EMPTY : value.toString());
-                }
-            }
+            ContextQuery.appendTo(context, builder);
         }
         return builder.build().toString();
     }
 
+    /**
+     * Returns URL of the API resource with query parameters of the context, same as parsing
+     * <code>apiURL + uri</code>. Plain paths are resolved against the base URL parsed once per client.
+     */
+    protected HttpUrl buildHttpUrl(String uri, Context<?> context) {
+        HttpUrl base = getBaseUrl();
+        HttpUrl.Builder builder;
+        if (base != null && uri.startsWith("/") && uri.indexOf('?') < 0 && uri.indexOf('#') < 0) {
+            builder = base.newBuilder().addEncodedPathSegments(uri.substring(1));
+        } else {
+            builder = Objects.requireNonNull(HttpUrl.parse(apiURL + uri)).newBuilder();
+        }
+        if (context != null) {
+            ContextQuery.appendTo(context, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns parsed <code>apiURL</code> if paths can be appended to it, <code>null</code> otherwise.
+     */
+    private HttpUrl getBaseUrl() {
+        BaseUrl cached = baseUrl;
+        if (cached == null || !Objects.equals(cached.source, apiURL)) {
+            cached = new BaseUrl(apiURL);
+            baseUrl = cached;
+        }
+        return cached.url;
+    }
+
     protected APIException getAPIException(Response response) {
         String message = response.message();
         if (Objects.nonNull(response.body())) {
@@ -416,4 +1283,22 @@ public abstract class AbstractAPIClient implements APIClient {
     private static boolean isCollection(Object o) {
         return o != null && Collection.class.isAssignableFrom(o.getClass());
     }
+
+    /**
+     * Parsed <code>apiURL</code>, kept with its source to notice changes of the field. URLs with query, fragment or
+     * trailing slash are not cached, as appending path segments to them differs from concatenation.
+     */
+    private static final class BaseUrl {
+
+        private final String source;
+
+        private final HttpUrl url;
+
+        private BaseUrl(String source) {
+            this.source = source;
+            HttpUrl parsed = source == null ? null : HttpUrl.parse(source);
+            this.url = parsed == null || parsed.encodedQuery() != null || parsed.encodedFragment() != null
+                    || parsed.encodedPath().endsWith("/") ? null : parsed;
+        }
+    }
 }
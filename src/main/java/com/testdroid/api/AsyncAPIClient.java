@@ -0,0 +1,58 @@
+package com.testdroid.api;
+
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.upload.StreamingRequestBody;
+import okhttp3.Response;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link APIClient}. Calls are enqueued on the http dispatcher, so no thread is
+ * occupied while waiting for the response. Returned futures complete exceptionally with {@link APIException}
+ * on any problem related to API communication.
+ */
+public interface AsyncAPIClient {
+
+    /**
+     * Calls GET request to API
+     *
+     * @param <T>  expected result class to be parsed from response
+     * @param uri  context URI of the resource (without <code>/api/v2</code> prefix
+     * @param type expected result class to be parsed from response
+     * @return future of object defined as <code>T</code>
+     */
+    <T extends APIEntity> CompletableFuture<T> getAsync(String uri, Class<T> type);
+
+    <T extends APIEntity> CompletableFuture<APIList<T>> getAsync(String uri, Context<T> context);
+
+    /**
+     * Calls GET request to API. Caller is responsible for closing the returned response.
+     */
+    CompletableFuture<Response> getHttpResponseAsync(String uri, Context<?> context);
+
+    /**
+     * Calls POST request to API
+     *
+     * @param <T>  expected result class to be parsed from response
+     * @param uri  context URI of the resource (without <code>/api/v2</code> prefix
+     * @param body body - usually url encoded, to POST to API
+     * @param type expected result class to be parsed from response
+     * @return future of object defined as <code>T</code>
+     */
+    <T extends APIEntity> CompletableFuture<T> postAsync(String uri, Object body, Class<T> type);
+
+    <T extends APIEntity> CompletableFuture<T> postFileAsync(
+            String uri, String contentType, File file, Map<String, String> fileExtraParams, Class<T> type);
+
+    <T extends APIEntity> CompletableFuture<T> postFileAsync(
+            String uri, StreamingRequestBody body, Map<String, String> fileExtraParams, Class<T> type);
+
+    /**
+     * Calls DELETE request to API
+     *
+     * @param uri context URI of the resource (without <code>/api/v2</code> prefix
+     */
+    CompletableFuture<Void> deleteAsync(String uri);
+}
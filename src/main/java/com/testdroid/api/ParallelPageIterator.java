@@ -0,0 +1,268 @@
+package com.testdroid.api;
+
+import com.testdroid.api.dto.Context;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Iterator behind {@link APIListResource#scan(ParallelScan)}. First page is fetched on the calling thread, then
+ * remaining offset windows are requested concurrently, each with its own copy of the context. State is guarded by
+ * a lock rather than a monitor, so a virtual thread waiting for a window is not pinned to its carrier.
+ */
+class ParallelPageIterator<T extends APIEntity> implements Iterator<T> {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final APIListResource<T> resource;
+
+    private final Context<T> context;
+
+    private final ParallelScan scan;
+
+    private final Executor executor;
+
+    /**
+     * Executor created by this iterator, shut down when the scan ends.
+     */
+    private final ThreadPoolExecutor ownExecutor;
+
+    private final Deque<CompletableFuture<APIList<T>>> submitted = new ArrayDeque<>();
+
+    private final BlockingQueue<CompletableFuture<APIList<T>>> arrived = new LinkedBlockingQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition slotReleased = lock.newCondition();
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    private boolean started;
+
+    private int nextOffset;
+
+    private int total;
+
+    private int windowSize;
+
+    /**
+     * Number of requested windows whose in-flight slot was not released yet.
+     */
+    private int inFlight;
+
+    /**
+     * Number of requested windows not taken by the consumer yet.
+     */
+    private int outstanding;
+
+    ParallelPageIterator(APIListResource<T> resource, Context<T> context, ParallelScan scan) {
+        this.resource = resource;
+        this.context = context;
+        this.scan = scan;
+        this.windowSize = scan.getPageSize() == null ? context.getLimit() : scan.getPageSize();
+        if (scan.getExecutor() == null && !resource.isAsync()) {
+            // blocking page requests should not occupy the common pool
+            ownExecutor = new ThreadPoolExecutor(scan.getParallelism(), scan.getParallelism(), 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "parallel-scan-" + THREAD_COUNT.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            ownExecutor.allowCoreThreadTimeOut(true);
+            executor = ownExecutor;
+        } else {
+            ownExecutor = null;
+            executor = scan.getExecutor();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (!started) {
+                start();
+            } else {
+                CompletableFuture<APIList<T>> window = takeWindow();
+                if (window == null) {
+                    return false;
+                }
+                page = join(window).getData().iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Cancels all requested windows which were not consumed yet.
+     */
+    void cancel() {
+        lock.lock();
+        try {
+            submitted.forEach(window -> window.cancel(true));
+            submitted.clear();
+            arrived.forEach(window -> window.cancel(true));
+            arrived.clear();
+            outstanding = 0;
+            nextOffset = total;
+            shutdown();
+            slotReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void start() {
+        started = true;
+        APIList<T> first;
+        try {
+            first = resource.getEntity(context.copy().setLimit(windowSize));
+        } catch (APIException e) {
+            shutdown();
+            throw new APIRuntimeException(e);
+        }
+        List<T> data = first.getData();
+        total = first.getTotal() == null ? 0 : first.getTotal();
+        nextOffset = context.getOffset() + data.size();
+        // server may cap the limit, then the size of the first page is the real window size
+        if (!data.isEmpty() && (windowSize <= 0 || data.size() < windowSize) && nextOffset < total) {
+            windowSize = data.size();
+        }
+        if (data.isEmpty()) {
+            nextOffset = total;
+        }
+        page = data.iterator();
+        fill();
+    }
+
+    private void fill() {
+        lock.lock();
+        try {
+            while (nextOffset < total && inFlight < scan.getParallelism()
+                    && outstanding < scan.getPrefetchDepth()) {
+                Context<T> windowContext = context.copy().setOffset(nextOffset).setLimit(windowSize);
+                nextOffset += windowSize;
+                inFlight++;
+                outstanding++;
+                CompletableFuture<APIList<T>> source = resource.getEntityAsync(windowContext, executor);
+                // the consumer observes the window only after its in-flight slot is released and next window
+                // requested
+                CompletableFuture<APIList<T>> window = source.whenComplete(
+                        (result, throwable) -> onWindowCompleted());
+                window.whenComplete((result, throwable) -> {
+                    if (window.isCancelled()) {
+                        source.cancel(true);
+                    }
+                });
+                if (scan.isOrdered()) {
+                    submitted.addLast(window);
+                } else {
+                    window.whenComplete((result, throwable) -> arrived.add(window));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onWindowCompleted() {
+        // window completed inline while this thread requests windows, the running loop requests the next one
+        boolean nested = lock.isHeldByCurrentThread();
+        lock.lock();
+        try {
+            inFlight--;
+            slotReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (!nested) {
+            fill();
+        }
+    }
+
+    /**
+     * Returns next window to consume, <code>null</code> when all windows were consumed.
+     */
+    private CompletableFuture<APIList<T>> takeWindow() {
+        CompletableFuture<APIList<T>> window = null;
+        lock.lock();
+        try {
+            while (outstanding == 0) {
+                if (nextOffset >= total) {
+                    shutdown();
+                    return null;
+                }
+                fill();
+                if (outstanding == 0) {
+                    waitForSlot();
+                }
+            }
+            outstanding--;
+            if (scan.isOrdered()) {
+                window = submitted.pollFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (window == null) {
+            try {
+                window = arrived.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIRuntimeException(new APIException("Interrupted while waiting for list page", e));
+            }
+        }
+        fill();
+        return window;
+    }
+
+    private void waitForSlot() {
+        try {
+            slotReleased.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIRuntimeException(new APIException("Interrupted while waiting for list page", e));
+        }
+    }
+
+    private void shutdown() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    private APIList<T> join(CompletableFuture<APIList<T>> window) {
+        try {
+            return window.join();
+        } catch (CompletionException e) {
+            cancel();
+            if (e.getCause() instanceof APIRuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof APIException apiException) {
+                throw new APIRuntimeException(apiException);
+            }
+            throw e;
+        }
+    }
+}
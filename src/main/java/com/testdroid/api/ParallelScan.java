@@ -0,0 +1,93 @@
+package com.testdroid.api;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Settings of {@link APIListResource#scan(ParallelScan)}. After the first page is fetched, remaining offset
+ * windows are requested concurrently.
+ */
+public class ParallelScan {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public static final int DEFAULT_PREFETCH_DEPTH = 2 * DEFAULT_PARALLELISM;
+
+    private Integer pageSize;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+
+    private boolean ordered = true;
+
+    private Executor executor;
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Number of items fetched with a single request. Defaults to the limit of the resource context.
+     */
+    public ParallelScan setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Maximum number of page requests in flight at the same time.
+     */
+    public ParallelScan setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * Maximum number of pages requested ahead of the consumer, including pages in flight.
+     * Bounds memory used by the scan to <code>prefetchDepth * pageSize</code> items.
+     */
+    public ParallelScan setPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException("Prefetch depth must be positive");
+        }
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * If <code>true</code> pages are emitted in offset order, otherwise as they arrive.
+     */
+    public ParallelScan setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Executor running blocking page requests. If not set, requests are enqueued through {@link AsyncAPIClient}
+     * when the client supports it, otherwise they run on daemon threads created for the scan, up to
+     * <code>parallelism</code> of them.
+     */
+    public ParallelScan setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+}
@@ -0,0 +1,28 @@
+package com.testdroid.api;
+
+/**
+ * HTTP protocol used by {@link AbstractAPIClient}.
+ */
+public enum ProtocolMode {
+
+    /**
+     * HTTP/2 if negotiated with the server over TLS, HTTP/1.1 otherwise. Default.
+     */
+    AUTO,
+
+    /**
+     * HTTP/1.1 only.
+     */
+    HTTP_1_1,
+
+    /**
+     * HTTP/2 if negotiated with the server over TLS, HTTP/1.1 otherwise and always behind a proxy.
+     */
+    HTTP_2,
+
+    /**
+     * HTTP/2 without negotiation, for cleartext <code>http</code> URLs of servers known to support it, e.g. local
+     * ones. HTTP/1.1 behind a proxy.
+     */
+    HTTP_2_PRIOR_KNOWLEDGE
+}
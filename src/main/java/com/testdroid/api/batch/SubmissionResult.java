@@ -0,0 +1,14 @@
+package com.testdroid.api.batch;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.model.APITestRun;
+
+/**
+ * Outcome of a single submission, either the started test run or the error which stopped it.
+ */
+public record SubmissionResult(TestRunSubmission submission, APITestRun testRun, APIException error) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
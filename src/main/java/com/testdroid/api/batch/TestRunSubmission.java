@@ -0,0 +1,41 @@
+package com.testdroid.api.batch;
+
+import com.testdroid.api.model.APIFileConfig;
+import com.testdroid.api.model.APITestRunConfig;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Test run config submitted by {@link TestRunSubmitter}, with local files uploaded and attached to the config
+ * before the run is started.
+ */
+public class TestRunSubmission {
+
+    private final APITestRunConfig config;
+
+    private final Map<APIFileConfig.Action, Path> uploads = new EnumMap<>(APIFileConfig.Action.class);
+
+    public TestRunSubmission(APITestRunConfig config) {
+        this.config = config;
+    }
+
+    public APITestRunConfig getConfig() {
+        return config;
+    }
+
+    public Map<APIFileConfig.Action, Path> getUploads() {
+        return Collections.unmodifiableMap(uploads);
+    }
+
+    /**
+     * Uploads the file and adds it to the config files with given action. Files of identical content are uploaded
+     * once per batch.
+     */
+    public TestRunSubmission addUpload(APIFileConfig.Action action, Path file) {
+        uploads.put(action, file);
+        return this;
+    }
+}
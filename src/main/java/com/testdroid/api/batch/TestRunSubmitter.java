@@ -0,0 +1,220 @@
+package com.testdroid.api.batch;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.model.APIFileConfig;
+import com.testdroid.api.model.APITestRun;
+import com.testdroid.api.model.APITestRunConfig;
+import com.testdroid.api.model.APIUser;
+import com.testdroid.api.model.APIUserFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static com.testdroid.api.model.APIUserFile.VIRUS_SCAN_TIMEOUT_DEFAULT;
+
+/**
+ * Submits many test runs with bounded parallelism. Each submission goes through its own pipeline - upload of
+ * local files, optional config validation and start of the run - so stages of different submissions overlap.
+ * Local files of identical content are uploaded once per batch, content hashes are cached per path while size
+ * and modification time of the file do not change. Configs of submissions are not modified, uploaded files are
+ * attached to their copies. A failed submission does not stop the others, every submission gets its own
+ * {@link SubmissionResult}.
+ */
+public class TestRunSubmitter {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final APIUser user;
+
+    private final Map<Path, FileHash> hashes = new ConcurrentHashMap<>();
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private boolean validate = true;
+
+    private Duration virusScanTimeout = Duration.ofMillis(VIRUS_SCAN_TIMEOUT_DEFAULT);
+
+    public TestRunSubmitter(APIUser user) {
+        this.user = user;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Maximum number of submissions processed at the same time.
+     */
+    public TestRunSubmitter setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public boolean isValidate() {
+        return validate;
+    }
+
+    /**
+     * Whether configs are validated with {@link APIUser#validateTestRunConfig} before the run is started.
+     */
+    public TestRunSubmitter setValidate(boolean validate) {
+        this.validate = validate;
+        return this;
+    }
+
+    public Duration getVirusScanTimeout() {
+        return virusScanTimeout;
+    }
+
+    /**
+     * Timeout of waiting for virus scans of uploaded files, <code>null</code> does not wait.
+     */
+    public TestRunSubmitter setVirusScanTimeout(Duration virusScanTimeout) {
+        this.virusScanTimeout = virusScanTimeout;
+        return this;
+    }
+
+    /**
+     * Submits configs without local uploads.
+     *
+     * @see #submit(Collection)
+     */
+    public List<SubmissionResult> submitConfigs(Collection<APITestRunConfig> configs) throws InterruptedException {
+        return submit(configs.stream().map(TestRunSubmission::new).collect(Collectors.toList()));
+    }
+
+    /**
+     * Submits all test runs and waits for their results.
+     *
+     * @return results in order of submissions
+     */
+    public List<SubmissionResult> submit(Collection<TestRunSubmission> submissions) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1,
+                submissions.size())));
+        try {
+            Map<String, CompletableFuture<APIUserFile>> uploads = new ConcurrentHashMap<>();
+            List<CompletableFuture<SubmissionResult>> results = submissions.stream()
+                    .map(submission -> CompletableFuture.supplyAsync(() -> process(submission, uploads), executor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get();
+            return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Submission failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SubmissionResult process(
+            TestRunSubmission submission, Map<String, CompletableFuture<APIUserFile>> uploads) {
+        try {
+            APITestRunConfig config = submission.getConfig();
+            if (!submission.getUploads().isEmpty()) {
+                config = config.copy();
+            }
+            for (Map.Entry<APIFileConfig.Action, Path> entry : submission.getUploads().entrySet()) {
+                APIFileConfig fileConfig = new APIFileConfig();
+                fileConfig.setAction(entry.getKey());
+                fileConfig.setFile(upload(entry.getValue(), uploads));
+                config.getFiles().add(fileConfig);
+            }
+            if (validate) {
+                config = user.validateTestRunConfig(config);
+            }
+            return new SubmissionResult(submission, user.startTestRun(config), null);
+        } catch (APIException e) {
+            return new SubmissionResult(submission, null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SubmissionResult(submission, null, new APIException("Submission interrupted", e));
+        } catch (RuntimeException e) {
+            return new SubmissionResult(submission, null, new APIException(e));
+        }
+    }
+
+    /**
+     * Uploads the file, unless a file of the same content is already uploaded or being uploaded in this batch.
+     */
+    private APIUserFile upload(Path path, Map<String, CompletableFuture<APIUserFile>> uploads)
+            throws APIException, InterruptedException {
+        CompletableFuture<APIUserFile> upload = new CompletableFuture<>();
+        CompletableFuture<APIUserFile> existing = uploads.putIfAbsent(hash(path), upload);
+        if (existing == null) {
+            try {
+                APIUserFile file = user.uploadFile(path);
+                if (virusScanTimeout != null) {
+                    file.waitForVirusScan(virusScanTimeout.toMillis());
+                }
+                upload.complete(file);
+            } catch (APIException | InterruptedException | RuntimeException e) {
+                upload.completeExceptionally(e);
+                throw e;
+            }
+            return upload.join();
+        }
+        try {
+            return existing.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof APIException apiException ? apiException
+                    : new APIException(String.format("Upload of %s failed", path), cause);
+        }
+    }
+
+    /**
+     * Returns SHA-256 of the file content, cached until size or modification time of the file changes.
+     */
+    private String hash(Path path) throws APIException {
+        try {
+            Path key = path.toAbsolutePath().normalize();
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            FileHash cached = hashes.get(key);
+            if (cached != null && cached.matches(attributes)) {
+                return cached.hash;
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream inputStream = Files.newInputStream(key)) {
+                byte[] buffer = new byte[HASH_BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            hashes.put(key, new FileHash(attributes.size(), attributes.lastModifiedTime(), hash));
+            return hash;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new APIException(String.format("Failed to read %s", path), e);
+        }
+    }
+
+    private record FileHash(long size, FileTime modified, String hash) {
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && modified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
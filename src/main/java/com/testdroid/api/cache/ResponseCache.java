@@ -0,0 +1,149 @@
+package com.testdroid.api.cache;
+
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.dto.Context;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory cache of raw response bodies, keyed on credentials scope and fully built request URL.
+ * Entries are evicted in LRU order when <code>maxEntries</code> is exceeded and expire after <code>ttl</code>.
+ * Cache is used only for requests with {@link Context#getCacheable()} set or for types opted in with
+ * {@link #cacheType(Class)}. Entries are guarded by a lock rather than a monitor, so virtual threads waiting for
+ * it are not pinned to their carriers.
+ */
+public class ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Set<Class<?>> cachedTypes = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Entry> entries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long hits;
+
+    private long misses;
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+
+    public ResponseCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    ResponseCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Opts in given type for caching, regardless of {@link Context#getCacheable()}.
+     */
+    public ResponseCache cacheType(Class<? extends APIEntity> type) {
+        cachedTypes.add(type);
+        return this;
+    }
+
+    public boolean isCacheable(Context<?> context, Type type) {
+        return (context != null && Boolean.TRUE.equals(context.getCacheable())) || cachedTypes.contains(type);
+    }
+
+    public static String key(String scope, String url) {
+        return scope + ' ' + url;
+    }
+
+    /**
+     * Returns cached body or <code>null</code> if there is no entry or it has expired.
+     */
+    public byte[] get(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && nanoClock.getAsLong() - entry.storedAt > ttlNanos) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.body;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String key, byte[] body) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry(body, nanoClock.getAsLong()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMisses() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(byte[] body, long storedAt) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.testdroid.api.compression;
+
+import okio.Okio;
+import okio.Source;
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.IOException;
+
+/**
+ * Keeps optional Brotli decoder classes out of {@link CompressionInterceptor}, so they are loaded only when needed.
+ */
+final class BrotliDecoder {
+
+    private BrotliDecoder() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static Source decode(Source source) throws IOException {
+        return Okio.source(new BrotliInputStream(Okio.buffer(source).inputStream()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.testdroid.api.compression;
+
+import java.util.StringJoiner;
+
+/**
+ * Compression settings of an API client. By default gzip responses are accepted and request bodies are sent as is.
+ * Brotli responses are accepted only if enabled, which requires <code>org.brotli:dec</code> on the class path.
+ * Gzip request bodies are opt-in, as they are not supported by all server deployments.
+ */
+public class Compression {
+
+    public static final int DEFAULT_MIN_REQUEST_SIZE = 1024;
+
+    static final String GZIP = "gzip";
+
+    static final String BROTLI = "br";
+
+    static final String IDENTITY = "identity";
+
+    private static final String BROTLI_DECODER_CLASS = "org.brotli.dec.BrotliInputStream";
+
+    private boolean gzip = true;
+
+    private boolean brotli;
+
+    private boolean gzipRequests;
+
+    private int minRequestSize = DEFAULT_MIN_REQUEST_SIZE;
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public Compression setGzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    public boolean isBrotli() {
+        return brotli;
+    }
+
+    /**
+     * Enables Brotli encoded responses.
+     *
+     * @throws IllegalStateException if Brotli decoder is not on the class path
+     */
+    public Compression setBrotli(boolean brotli) {
+        if (brotli && !isBrotliAvailable()) {
+            throw new IllegalStateException("Brotli decoding requires org.brotli:dec on the class path");
+        }
+        this.brotli = brotli;
+        return this;
+    }
+
+    public boolean isGzipRequests() {
+        return gzipRequests;
+    }
+
+    /**
+     * Enables gzip of JSON request bodies of at least {@link #getMinRequestSize()} bytes.
+     */
+    public Compression setGzipRequests(boolean gzipRequests) {
+        this.gzipRequests = gzipRequests;
+        return this;
+    }
+
+    public int getMinRequestSize() {
+        return minRequestSize;
+    }
+
+    public Compression setMinRequestSize(int minRequestSize) {
+        this.minRequestSize = minRequestSize;
+        return this;
+    }
+
+    /**
+     * Returns value of <code>Accept-Encoding</code> header matching these settings.
+     */
+    public String getAcceptEncoding() {
+        StringJoiner joiner = new StringJoiner(", ");
+        if (brotli) {
+            joiner.add(BROTLI);
+        }
+        if (gzip) {
+            joiner.add(GZIP);
+        }
+        return joiner.length() == 0 ? IDENTITY : joiner.toString();
+    }
+
+    public static boolean isBrotliAvailable() {
+        try {
+            Class.forName(BROTLI_DECODER_CLASS, false, Compression.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.testdroid.api.compression;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
+
+/**
+ * Negotiates response encoding according to {@link Compression} settings and decodes responses, instead of
+ * transparent gzip of OkHttp, which supports neither Brotli nor counting of received bytes. Optionally gzips
+ * JSON request bodies. Requests with <code>Range</code> or explicit <code>Accept-Encoding</code> header are
+ * passed as they are.
+ */
+public class CompressionInterceptor implements Interceptor {
+
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final String RANGE = "Range";
+
+    private static final String HEAD = "HEAD";
+
+    private final Compression compression;
+
+    private final CompressionStatistics statistics;
+
+    public CompressionInterceptor(Compression compression, CompressionStatistics statistics) {
+        this.compression = compression;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Request.Builder builder = request.newBuilder();
+        boolean negotiate = request.header(ACCEPT_ENCODING) == null && request.header(RANGE) == null;
+        if (negotiate) {
+            builder.header(ACCEPT_ENCODING, compression.getAcceptEncoding());
+        }
+        RequestBody body = request.body();
+        if (body != null) {
+            long length = body.contentLength();
+            if (shouldCompress(request, body, length)) {
+                RequestBody compressed = gzip(body);
+                statistics.recordRequest(length, compressed.contentLength());
+                builder.header(CONTENT_ENCODING, Compression.GZIP).method(request.method(), compressed);
+            } else if (length > 0) {
+                statistics.recordRequest(length, length);
+            }
+        }
+        Response response = chain.proceed(builder.build());
+        return negotiate ? decode(response) : response;
+    }
+
+    private boolean shouldCompress(Request request, RequestBody body, long length) {
+        return compression.isGzipRequests() && length >= compression.getMinRequestSize()
+                && request.header(CONTENT_ENCODING) == null && !body.isOneShot() && isJson(body.contentType());
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        return mediaType != null && ("json".equals(mediaType.subtype()) || mediaType.subtype().endsWith("+json"));
+    }
+
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+        return RequestBody.create(buffer.readByteString(), body.contentType());
+    }
+
+    private Response decode(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        String encoding = response.header(CONTENT_ENCODING);
+        if (encoding == null || !hasBody(response)) {
+            Source counted = new CountingSource(body.source(), bytes -> {
+                statistics.recordResponseWireBytes(bytes);
+                statistics.recordResponseBytes(bytes);
+            });
+            return response.newBuilder()
+                    .body(ResponseBody.create(Okio.buffer(counted), body.contentType(), body.contentLength()))
+                    .build();
+        }
+        Source wire = new CountingSource(body.source(), statistics::recordResponseWireBytes);
+        Source decoded;
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case Compression.GZIP:
+                decoded = new GzipSource(wire);
+                break;
+            case Compression.BROTLI:
+                decoded = BrotliDecoder.decode(wire);
+                break;
+            case Compression.IDENTITY:
+                decoded = wire;
+                break;
+            default:
+                return response;
+        }
+        Source counted = new CountingSource(decoded, statistics::recordResponseBytes);
+        return response.newBuilder()
+                .removeHeader(CONTENT_ENCODING)
+                .removeHeader(CONTENT_LENGTH)
+                .body(ResponseBody.create(Okio.buffer(counted), body.contentType(), -1L))
+                .build();
+    }
+
+    private static boolean hasBody(Response response) {
+        int code = response.code();
+        return !HEAD.equals(response.request().method()) && code != HTTP_NO_CONTENT && code != HTTP_NOT_MODIFIED
+                && (code >= 200 || code < 100);
+    }
+
+    private static class CountingSource extends ForwardingSource {
+
+        private final LongConsumer counter;
+
+        CountingSource(Source delegate, LongConsumer counter) {
+            super(delegate);
+            this.counter = counter;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                counter.accept(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.testdroid.api.compression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transferred bytes counters of an API client. Wire bytes are counted as sent or received, possibly compressed,
+ * other bytes as written or read by the client. Response bytes are counted while the body is read.
+ */
+public class CompressionStatistics {
+
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    private final AtomicLong requestWireBytes = new AtomicLong();
+
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    private final AtomicLong responseWireBytes = new AtomicLong();
+
+    public void recordRequest(long bytes, long wireBytes) {
+        requestBytes.addAndGet(bytes);
+        requestWireBytes.addAndGet(wireBytes);
+    }
+
+    public void recordResponseBytes(long bytes) {
+        responseBytes.addAndGet(bytes);
+    }
+
+    public void recordResponseWireBytes(long bytes) {
+        responseWireBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Returns size of request bodies with known length, before compression.
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * Returns size of request bodies with known length, as sent.
+     */
+    public long getRequestWireBytes() {
+        return requestWireBytes.get();
+    }
+
+    /**
+     * Returns size of response bodies read, after decompression.
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Returns size of response bodies read, as received.
+     */
+    public long getResponseWireBytes() {
+        return responseWireBytes.get();
+    }
+}
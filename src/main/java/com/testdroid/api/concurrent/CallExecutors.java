@@ -0,0 +1,56 @@
+package com.testdroid.api.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors of blocking client calls, one thread per call. On Java 21 and newer the multi-release jar provides
+ * a variant running each call on a virtual thread, so thousands of waiting calls do not need as many platform
+ * threads. This variant falls back to a cached pool of daemon platform threads.
+ */
+public final class CallExecutors {
+
+    static final String THREAD_NAME_PREFIX = "testdroid-api-call-";
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private CallExecutors() {
+    }
+
+    /**
+     * Returns new executor starting a thread for every task. It should be shut down by the caller.
+     */
+    public static ExecutorService newPerCallExecutor() {
+        return Executors.newCachedThreadPool(CallExecutors::newThread);
+    }
+
+    /**
+     * Returns new executor running tasks on at most <code>maxThreads</code> daemon threads, further tasks wait in
+     * a queue. Idle threads are stopped. It should be shut down by the caller.
+     */
+    public static ExecutorService newBoundedExecutor(int maxThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), CallExecutors::newThread);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns <code>true</code> if calls run on virtual threads.
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + THREAD_COUNT.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
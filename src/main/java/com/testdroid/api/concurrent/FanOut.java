@@ -0,0 +1,219 @@
+package com.testdroid.api.concurrent;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIRuntimeException;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.model.APITestRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs blocking client calls concurrently, each on its own thread from {@link CallExecutors}, and returns when
+ * all of them are done. Calls are scoped to the method like in structured concurrency: the first failure cancels
+ * the remaining calls, the method waits up to {@link #getShutdownTimeout()} for them to finish and rethrows the
+ * failure. Only calls ignoring interruption outlive the method.
+ * <pre>
+ * Map&lt;Long, List&lt;APIDeviceSession&gt;&gt; sessionsByRunId = new FanOut().setParallelism(100)
+ *         .getDeviceSessions(runs);
+ * </pre>
+ */
+public class FanOut {
+
+    /**
+     * Blocking call made for every item.
+     */
+    @FunctionalInterface
+    public interface Call<T, R> {
+
+        R call(T item) throws APIException;
+    }
+
+    public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FanOut.class);
+
+    private int parallelism = defaultParallelism();
+
+    private Duration shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+    private Supplier<ExecutorService> executorFactory;
+
+    /**
+     * Calls on virtual threads are unlimited, platform threads are bounded by the number of processors.
+     */
+    private static int defaultParallelism() {
+        return CallExecutors.isVirtual() ? Integer.MAX_VALUE : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Maximum number of calls in flight at the same time. Unlimited by default when calls run on virtual threads,
+     * otherwise the number of available processors. Calls over the limit are not submitted to the executor until
+     * one of the running calls finishes.
+     */
+    public FanOut setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Maximum time to wait for cancelled calls after the first failure, {@link #DEFAULT_SHUTDOWN_TIMEOUT} by
+     * default. Calls still running after it are left behind.
+     */
+    public FanOut setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+        return this;
+    }
+
+    /**
+     * Sets factory of executors, a new one is created and shut down for every fan-out. Defaults to
+     * {@link CallExecutors#newBoundedExecutor(int)} with the parallelism, so no more platform threads are started
+     * than calls may run at once.
+     */
+    public FanOut setExecutorFactory(Supplier<ExecutorService> executorFactory) {
+        this.executorFactory = executorFactory;
+        return this;
+    }
+
+    /**
+     * Makes the call for every item and returns results in the order of items.
+     *
+     * @throws APIException first failure of the calls, or if the calling thread is interrupted
+     */
+    public <T, R> List<R> map(Collection<? extends T> items, Call<? super T, ? extends R> call)
+            throws APIException {
+        int maxInFlight = Math.min(parallelism, Math.max(items.size(), 1));
+        ExecutorService executor = executorFactory != null ? executorFactory.get()
+                : CallExecutors.newBoundedExecutor(maxInFlight);
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try {
+            CompletionService<R> completion = new ExecutorCompletionService<>(executor);
+            int completed = 0;
+            for (T item : items) {
+                permits.acquire();
+                // fail before submitting the rest if any of the finished calls failed
+                for (Future<R> done = completion.poll(); done != null; done = completion.poll()) {
+                    done.get();
+                    completed++;
+                }
+                futures.add(completion.submit(() -> {
+                    try {
+                        return call.call(item);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = completed; i < futures.size(); i++) {
+                completion.take().get();
+            }
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for calls", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            shutdown(executor, shutdownTimeout);
+        }
+    }
+
+    /**
+     * Makes the call for every item.
+     *
+     * @throws APIException first failure of the calls, or if the calling thread is interrupted
+     */
+    public <T> void forEach(Collection<? extends T> items, Call<? super T, ?> call) throws APIException {
+        map(items, call);
+    }
+
+    /**
+     * Fetches all device sessions of every run, all pages of a run are fetched by the same call.
+     *
+     * @return sessions by run ID, in the order of runs
+     */
+    public Map<Long, List<APIDeviceSession>> getDeviceSessions(Collection<APITestRun> runs) throws APIException {
+        List<List<APIDeviceSession>> sessions = map(runs,
+                run -> run.getDeviceSessionsResource().stream().collect(Collectors.toList()));
+        Map<Long, List<APIDeviceSession>> result = new LinkedHashMap<>();
+        int i = 0;
+        for (APITestRun run : runs) {
+            result.put(run.getId(), sessions.get(i++));
+        }
+        return result;
+    }
+
+    /**
+     * Aborts every device session.
+     *
+     * @return aborted sessions, in the order of given ones
+     */
+    public List<APIDeviceSession> abort(Collection<APIDeviceSession> sessions) throws APIException {
+        return map(sessions, APIDeviceSession::abort);
+    }
+
+    private static APIException unwrap(Throwable cause) {
+        if (cause instanceof APIException) {
+            return (APIException) cause;
+        }
+        if (cause instanceof APIRuntimeException) {
+            return ((APIRuntimeException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new APIException(cause);
+    }
+
+    /**
+     * Waits up to <code>timeout</code> until cancelled calls finish, then interrupts the remaining ones again and
+     * gives up on them. Interruption of the calling thread ends the wait too and is restored.
+     */
+    private static void shutdown(ExecutorService executor, Duration timeout) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                LOGGER.warn("Calls of fan-out did not finish within {}", timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.testdroid.api.download;
+
+import com.testdroid.api.upload.ProgressListener;
+
+import java.time.Duration;
+
+/**
+ * Settings of a file download. By default the file is downloaded over a single connection, which is resumed
+ * with <code>Range</code> request after a failure.
+ */
+public class DownloadOptions {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(1);
+
+    public static final long DEFAULT_MIN_RANGE_SIZE = 16L * 1024 * 1024;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private Duration retryDelay = DEFAULT_RETRY_DELAY;
+
+    private int parallelism = 1;
+
+    private long minRangeSize = DEFAULT_MIN_RANGE_SIZE;
+
+    private Long expectedSize;
+
+    private ProgressListener progressListener;
+
+    public DownloadOptions copy() {
+        return new DownloadOptions()
+                .setMaxAttempts(maxAttempts)
+                .setRetryDelay(retryDelay)
+                .setParallelism(parallelism)
+                .setMinRangeSize(minRangeSize)
+                .setExpectedSize(expectedSize)
+                .setProgressListener(progressListener);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Maximum number of attempts to download each byte range, including resumed ones.
+     */
+    public DownloadOptions setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    public DownloadOptions setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Number of byte ranges downloaded concurrently. Used only when server advertises
+     * <code>Accept-Ranges: bytes</code> and the file has at least <code>2 * minRangeSize</code> bytes.
+     */
+    public DownloadOptions setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public long getMinRangeSize() {
+        return minRangeSize;
+    }
+
+    public DownloadOptions setMinRangeSize(long minRangeSize) {
+        this.minRangeSize = minRangeSize;
+        return this;
+    }
+
+    public Long getExpectedSize() {
+        return expectedSize;
+    }
+
+    /**
+     * Size the downloaded file is verified against, e.g. {@link com.testdroid.api.model.APIUserFile#getSize()}.
+     */
+    public DownloadOptions setExpectedSize(Long expectedSize) {
+        this.expectedSize = expectedSize;
+        return this;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public DownloadOptions setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+}
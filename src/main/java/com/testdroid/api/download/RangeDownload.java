@@ -0,0 +1,281 @@
+package com.testdroid.api.download;
+
+import com.testdroid.api.APIException;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Downloads a file to {@link Path} through {@link FileChannel}. After a failure the transfer is resumed from
+ * the last written byte with <code>Range</code> request. When the server advertises
+ * <code>Accept-Ranges: bytes</code>, the file may be split into byte ranges downloaded concurrently.
+ * Broken transfers, connection failures and server errors are retried up to
+ * {@link DownloadOptions#getMaxAttempts()} times. Every response is closed, also when the download fails.
+ */
+public class RangeDownload {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final RangeFetcher fetcher;
+
+    private final DownloadOptions options;
+
+    private final AtomicLong transferred = new AtomicLong();
+
+    private volatile boolean cancelled;
+
+    private volatile long total = -1;
+
+    public RangeDownload(RangeFetcher fetcher, DownloadOptions options) {
+        this.fetcher = fetcher;
+        this.options = options;
+    }
+
+    /**
+     * Downloads the file, replacing content of <code>target</code>. The file is deleted when the download fails,
+     * so no partial content is left behind.
+     *
+     * @return size of the downloaded file
+     * @throws APIException on API errors, when attempts are exhausted or the size does not match
+     */
+    public long run(Path target) throws APIException {
+        boolean downloaded = false;
+        try (FileChannel channel = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long size = download(channel);
+            channel.truncate(size);
+            verifySize(target, size);
+            downloaded = true;
+            return size;
+        } catch (IOException e) {
+            throw new APIException(String.format("Failed to write %s", target), e);
+        } finally {
+            if (!downloaded) {
+                deletePartial(target);
+            }
+        }
+    }
+
+    private long download(FileChannel channel) throws APIException {
+        Response response = fetchFirst();
+        long length = Objects.requireNonNull(response.body()).contentLength();
+        total = length;
+        int count = length < 0 ? 1 : (int) Math.min(options.getParallelism(), length / options.getMinRangeSize());
+        if (count < 2 || !"bytes".equalsIgnoreCase(response.header("Accept-Ranges"))) {
+            return downloadRange(channel, 0, -1, response);
+        }
+        long rangeSize = length / count;
+        ExecutorService executor = Executors.newFixedThreadPool(count - 1);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 1; i < count; i++) {
+                long from = i * rangeSize;
+                long to = i == count - 1 ? length - 1 : from + rangeSize - 1;
+                futures.add(executor.submit(() -> downloadRange(channel, from, to, null)));
+            }
+            downloadRange(channel, 0, rangeSize - 1, response);
+            for (Future<Long> future : futures) {
+                await(future);
+            }
+            return length;
+        } catch (APIException | RuntimeException e) {
+            cancelled = true;
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches the whole file, retrying transient failures.
+     */
+    private Response fetchFirst() throws APIException {
+        int attempt = 1;
+        while (true) {
+            try {
+                return fetcher.fetch(0, -1);
+            } catch (APIException e) {
+                if (!isTransient(e) || attempt >= options.getMaxAttempts()) {
+                    throw e;
+                }
+                attempt++;
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> for failures worth another attempt: connection failures and server errors.
+     */
+    static boolean isTransient(APIException e) {
+        Integer status = e.getStatus();
+        return status == null ? e.getCause() instanceof IOException : status >= 500;
+    }
+
+    private static void deletePartial(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException ignored) {
+            // the download failure is reported instead
+        }
+    }
+
+    private static void await(Future<Long> future) throws APIException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Download interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APIException apiException) {
+                throw apiException;
+            }
+            throw new APIException(e.getCause());
+        }
+    }
+
+    /**
+     * Downloads bytes <code>from</code> - <code>to</code>, resuming the range after failures.
+     *
+     * @param response already received response of the range, or <code>null</code>
+     * @return position after the last written byte
+     */
+    private long downloadRange(FileChannel channel, long from, long to, Response response) throws APIException {
+        long[] position = {from};
+        int attempt = 1;
+        while (true) {
+            if (cancelled) {
+                throw new APIException("Download cancelled");
+            }
+            try {
+                if (response == null) {
+                    response = fetcher.fetch(position[0], to);
+                    position[0] = checkRange(response, from, position[0]);
+                }
+                copy(response, channel, position, to);
+                long end = to >= 0 ? to : total - 1;
+                if (end >= 0 && position[0] <= end) {
+                    throw new EOFException(String.format("Range ended at %d, expected %d", position[0], end + 1));
+                }
+                return position[0];
+            } catch (IOException e) {
+                if (attempt >= options.getMaxAttempts()) {
+                    throw new APIException(String.format("Download failed after %d attempts at byte %d", attempt,
+                            position[0]), e);
+                }
+                attempt++;
+                sleep();
+            } catch (APIException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= options.getMaxAttempts()) {
+                    throw new APIException(e.getStatus(), String.format(
+                            "Download failed after %d attempts at byte %d", attempt, position[0]), e);
+                }
+                attempt++;
+                sleep();
+            } finally {
+                if (response != null) {
+                    response.close();
+                    response = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns position the response starts at. Server may ignore <code>Range</code> and return the whole file,
+     * then the first range starts over.
+     */
+    private long checkRange(Response response, long from, long position) throws IOException, APIException {
+        if (response.code() == HTTP_PARTIAL) {
+            Matcher matcher = CONTENT_RANGE.matcher(Objects.toString(response.header("Content-Range"), ""));
+            if (!matcher.matches() || Long.parseLong(matcher.group(1)) != position) {
+                throw new IOException(String.format("Unexpected Content-Range %s, requested from %d",
+                        response.header("Content-Range"), position));
+            }
+            return position;
+        }
+        if (from != 0) {
+            throw new APIException(String.format("Server ignored Range request from byte %d", from));
+        }
+        transferred.addAndGet(-position);
+        return 0;
+    }
+
+    /**
+     * Copies the response body to the channel, advancing <code>position</code> after every write, so a broken
+     * transfer is resumed from the last written byte.
+     */
+    private void copy(Response response, FileChannel channel, long[] position, long to) throws IOException {
+        ResponseBody body = Objects.requireNonNull(response.body());
+        BufferedSource source = body.source();
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        while (to < 0 || position[0] <= to) {
+            if (cancelled) {
+                throw new InterruptedIOException("Download cancelled");
+            }
+            if (to >= 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), to + 1 - position[0]));
+            }
+            int read = source.read(buffer);
+            if (read == -1) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position[0] += channel.write(buffer, position[0]);
+            }
+            buffer.clear();
+            long done = transferred.addAndGet(read);
+            if (options.getProgressListener() != null) {
+                options.getProgressListener().onProgress(done, total);
+            }
+        }
+    }
+
+    private void verifySize(Path target, long size) throws APIException {
+        if (total >= 0 && size != total) {
+            throw new APIException(String.format("Downloaded %d bytes of %s, expected %d", size, target, total));
+        }
+        Long expectedSize = options.getExpectedSize();
+        if (expectedSize != null && size != expectedSize) {
+            throw new APIException(String.format("Downloaded %d bytes of %s, expected %d", size, target,
+                    expectedSize));
+        }
+    }
+
+    private void sleep() throws APIException {
+        try {
+            Thread.sleep(options.getRetryDelay().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Download interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.testdroid.api.download;
+
+import com.testdroid.api.APIException;
+import okhttp3.Response;
+
+/**
+ * Fetches the file or its byte range. Implementation has to turn unsuccessful responses into {@link APIException}.
+ */
+@FunctionalInterface
+public interface RangeFetcher {
+
+    /**
+     * @param from first byte of the range
+     * @param to   last byte of the range, inclusive, or <code>-1</code> for the rest of the file. Range
+     *             <code>0, -1</code> requests the whole file without <code>Range</code> header.
+     */
+    Response fetch(long from, long to) throws APIException;
+}
@@ -7,9 +7,13 @@ import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +39,10 @@ public class Context<T extends APIEntity> {
 
     public static final String OFFSET_REQUEST_PARAM = "offset";
 
+    public static final String FIELDS_REQUEST_PARAM = "fields";
+
+    public static final String FIELDS_DELIMITER = ",";
+
     private int limit = DEFAULT_LIMIT;
 
     private int offset = DEFAULT_OFFSET;
@@ -47,6 +55,8 @@ public class Context<T extends APIEntity> {
 
     private List<FilterEntry> filters = new ArrayList<>();
 
+    private Set<String> fields = new LinkedHashSet<>();
+
     private final Class<T> type;
 
     private Boolean cacheable = Boolean.FALSE;
@@ -145,6 +155,29 @@ public class Context<T extends APIEntity> {
         return groups;
     }
 
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Limits fields of listed entities to the given ones, entity <code>id</code> is always returned. Projection is
+     * sent to the server with <code>{@value #FIELDS_REQUEST_PARAM}</code> parameter and also applied by the client
+     * when parsing response, so other fields are <code>null</code> even if the server returns them.
+     */
+    public Context<T> setFields(Collection<String> fields) {
+        this.fields = new LinkedHashSet<>(fields);
+        return this;
+    }
+
+    public Context<T> setFields(String... fields) {
+        return setFields(Arrays.asList(fields));
+    }
+
+    public Context<T> addField(String field) {
+        this.fields.add(field);
+        return this;
+    }
+
     public Boolean getCacheable() {
         return cacheable;
     }
@@ -162,6 +195,10 @@ public class Context<T extends APIEntity> {
         this.extraParams = extraParams;
     }
 
+    public Long getCount() {
+        return count;
+    }
+
     public Context<T> setCount(Long count) {
         this.count = count;
         return this;
@@ -187,13 +224,41 @@ public class Context<T extends APIEntity> {
         map.put(SORT_REQUEST_PARAM, sort != null ? sort.serialize() : null);
         map.put(FILTER_REQUEST_PARAM, filters.stream().map(FilterEntry::toString).collect(Collectors.joining(";")));
         map.put(GROUP_REQUEST_PARAM, groups);
+        if (!fields.isEmpty()) {
+            map.put(FIELDS_REQUEST_PARAM, String.join(FIELDS_DELIMITER, fields));
+        }
         map.putAll(extraParams);
         return map;
     }
 
+    /**
+     * Returns copy of this context, which can be modified without affecting the original one.
+     */
+    public Context<T> copy() {
+        Context<T> copy = new Context<>(type);
+        copy.limit = limit;
+        copy.offset = offset;
+        copy.search = search;
+        copy.sort = sort;
+        copy.groups = new ArrayList<>(groups);
+        copy.filters = new ArrayList<>(filters);
+        copy.fields = new LinkedHashSet<>(fields);
+        copy.cacheable = cacheable;
+        copy.extraParams = new HashSetValuedHashMap<>(extraParams);
+        copy.count = count;
+        return copy;
+    }
+
+    /**
+     * Returns immutable snapshot of this context, see {@link ImmutableContext}.
+     */
+    public ImmutableContext<T> freeze() {
+        return ImmutableContext.from(this);
+    }
+
     public <R extends T> Context<R> as(Class<R> clazz) {
         return new Context<>(clazz, this.offset, this.limit, this.search, this.sort
-                .serialize(), this.filters, this.groups);
+                .serialize(), this.filters, this.groups).setFields(this.fields);
     }
 
     private Boolean keyAndOperandEqual(FilterEntry fe, String field, Operand operand) {
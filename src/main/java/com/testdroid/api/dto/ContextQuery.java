@@ -0,0 +1,121 @@
+package com.testdroid.api.dto;
+
+import com.testdroid.api.filter.FilterEntry;
+import okhttp3.HttpUrl;
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Renders query parameters of {@link Context} straight into {@link HttpUrl.Builder}, without the intermediate map
+ * of {@link Context#build()}, boxing and formatting. Parameters are added in the order of iterating that map, which
+ * is resolved once, so produced URLs are identical. Contexts with extra parameters are rendered from
+ * {@link Context#build()}, as their keys may take any position.
+ */
+public final class ContextQuery {
+
+    private enum Param {
+        LIMIT(Context.LIMIT_REQUEST_PARAM),
+        OFFSET(Context.OFFSET_REQUEST_PARAM),
+        SEARCH(Context.SEARCH_REQUEST_PARAM),
+        SORT(Context.SORT_REQUEST_PARAM),
+        FILTER(Context.FILTER_REQUEST_PARAM),
+        GROUP(Context.GROUP_REQUEST_PARAM),
+        FIELDS(Context.FIELDS_REQUEST_PARAM);
+
+        private final String key;
+
+        Param(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Parameters in the order of {@link Context#build()} map, keys are put there in the order of declaration.
+     */
+    private static final Param[] ORDER = resolveOrder();
+
+    private ContextQuery() {
+    }
+
+    /**
+     * Adds query parameters of the context to the builder.
+     */
+    public static void appendTo(Context<?> context, HttpUrl.Builder builder) {
+        MultiValuedMap<String, Object> extraParams = context.getExtraParams();
+        if (extraParams == null || !extraParams.isEmpty()) {
+            appendBuilt(context, builder);
+            return;
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (Param param : ORDER) {
+            String value = render(param, context, buffer);
+            if (value != null) {
+                builder.addQueryParameter(param.key, value);
+            }
+        }
+    }
+
+    /**
+     * Returns value of the parameter as put to the URL, <code>null</code> if the parameter is omitted.
+     */
+    private static String render(Param param, Context<?> context, StringBuilder buffer) {
+        switch (param) {
+            case LIMIT:
+                return Integer.toString(context.getLimit());
+            case OFFSET:
+                return Integer.toString(context.getOffset());
+            case SEARCH:
+                return context.getSearch() == null ? EMPTY : context.getSearch();
+            case SORT:
+                if (context.getSort() == null) {
+                    return EMPTY;
+                }
+                buffer.setLength(0);
+                return context.getSort().appendTo(buffer).toString();
+            case FILTER:
+                List<FilterEntry> filters = context.getFilters();
+                if (filters.isEmpty()) {
+                    return EMPTY;
+                }
+                buffer.setLength(0);
+                for (int i = 0; i < filters.size(); i++) {
+                    if (i > 0) {
+                        buffer.append(Context.FILTER_DELIMITER);
+                    }
+                    filters.get(i).appendTo(buffer);
+                }
+                return buffer.toString();
+            case GROUP:
+                return context.getGroups() == null ? EMPTY : context.getGroups().toString();
+            case FIELDS:
+                return context.getFields().isEmpty() ? null : String.join(Context.FIELDS_DELIMITER,
+                        context.getFields());
+            default:
+                throw new IllegalStateException("Unknown parameter " + param);
+        }
+    }
+
+    private static void appendBuilt(Context<?> context, HttpUrl.Builder builder) {
+        for (Map.Entry<String, Collection<Object>> entry : context.build().asMap().entrySet()) {
+            for (Object value : entry.getValue()) {
+                builder.addQueryParameter(entry.getKey(), value == null ? EMPTY : value.toString());
+            }
+        }
+    }
+
+    private static Param[] resolveOrder() {
+        MultiValuedMap<String, Object> map = new HashSetValuedHashMap<>();
+        for (Param param : Param.values()) {
+            map.put(param.key, param);
+        }
+        return map.keySet().stream()
+                .map(key -> (Param) map.get(key).iterator().next())
+                .toArray(Param[]::new);
+    }
+}
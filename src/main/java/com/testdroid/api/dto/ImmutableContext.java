@@ -0,0 +1,292 @@
+package com.testdroid.api.dto;
+
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APISort;
+import com.testdroid.api.filter.FilterEntry;
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, thread safe variant of {@link Context}, to be shared between threads, used as a cache key or as a
+ * template of requests. Derivations like {@link #withOffset(int)} and {@link #withFilter(FilterEntry)} are
+ * <code>O(1)</code>, filters, groups, fields, extra parameters and the serialized sort are shared with the derived
+ * context. Requests are made with a mutable copy returned by {@link #toContext()}.
+ * <pre>
+ * ImmutableContext&lt;APIDeviceSession&gt; failed = ImmutableContext.of(APIDeviceSession.class)
+ *         .withFilter(new FilterEntry("state", Operand.EQ, "FAILED"));
+ * client.get(uri, failed.withOffset(100).toContext());
+ * </pre>
+ * Equality covers the type and all query parameters, but not {@link #getCacheable()} and {@link #getCount()}.
+ * Filters, groups and extra parameters are compared in the order of adding them.
+ */
+public final class ImmutableContext<T extends APIEntity> {
+
+    private final Class<T> type;
+
+    private final int offset;
+
+    private final int limit;
+
+    private final String search;
+
+    private final List<APISort.SortItem> sorts;
+
+    private final String sort;
+
+    private final PersistentList<FilterEntry> filters;
+
+    private final PersistentList<String> groups;
+
+    private final PersistentList<String> fields;
+
+    private final PersistentList<Map.Entry<String, Object>> extraParams;
+
+    private final Boolean cacheable;
+
+    private final Long count;
+
+    private final int hash;
+
+    private ImmutableContext(
+            Class<T> type, int offset, int limit, String search, List<APISort.SortItem> sorts, String sort,
+            PersistentList<FilterEntry> filters, PersistentList<String> groups, PersistentList<String> fields,
+            PersistentList<Map.Entry<String, Object>> extraParams, Boolean cacheable, Long count) {
+        this.type = Objects.requireNonNull(type);
+        this.offset = offset;
+        this.limit = limit;
+        this.search = search;
+        this.sorts = sorts;
+        this.sort = sort;
+        this.filters = filters;
+        this.groups = groups;
+        this.fields = fields;
+        this.extraParams = extraParams;
+        this.cacheable = cacheable;
+        this.count = count;
+        this.hash = Objects.hash(type, offset, limit, search, sort, filters, groups, fields, extraParams);
+    }
+
+    private ImmutableContext(ImmutableContext<T> from, int offset, int limit, String search) {
+        this(from.type, offset, limit, search, from.sorts, from.sort, from.filters, from.groups, from.fields,
+                from.extraParams, from.cacheable, from.count);
+    }
+
+    public static <T extends APIEntity> ImmutableContext<T> of(Class<T> type) {
+        return new ImmutableContext<>(type, Context.DEFAULT_OFFSET, Context.DEFAULT_LIMIT, null, List.of(),
+                serialize(List.of()), PersistentList.empty(), PersistentList.empty(), PersistentList.empty(),
+                PersistentList.empty(), Boolean.FALSE, null);
+    }
+
+    /**
+     * Returns snapshot of the context, not affected by its later changes.
+     */
+    public static <T extends APIEntity> ImmutableContext<T> from(Context<T> context) {
+        PersistentList<Map.Entry<String, Object>> extraParams = PersistentList.empty();
+        if (context.getExtraParams() != null) {
+            for (Map.Entry<String, Object> entry : context.getExtraParams().entries()) {
+                extraParams = extraParams.append(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        PersistentList<FilterEntry> filters = PersistentList.empty();
+        if (context.getFilters() != null) {
+            for (FilterEntry filter : context.getFilters()) {
+                filters = filters.append(copy(filter));
+            }
+        }
+        List<APISort.SortItem> sorts = copy(context.getSort());
+        return new ImmutableContext<>(context.getType(), context.getOffset(), context.getLimit(),
+                context.getSearch(), sorts, serialize(sorts), filters, PersistentList.of(context.getGroups()),
+                PersistentList.of(context.getFields()), extraParams, context.getCacheable(), context.getCount());
+    }
+
+    public ImmutableContext<T> withOffset(int offset) {
+        return offset == this.offset ? this : new ImmutableContext<>(this, offset, limit, search);
+    }
+
+    public ImmutableContext<T> withLimit(int limit) {
+        return limit == this.limit ? this : new ImmutableContext<>(this, offset, limit, search);
+    }
+
+    public ImmutableContext<T> withSearch(String search) {
+        return Objects.equals(search, this.search) ? this : new ImmutableContext<>(this, offset, limit, search);
+    }
+
+    public ImmutableContext<T> withSort(APISort sort) {
+        List<APISort.SortItem> items = copy(sort);
+        return new ImmutableContext<>(type, offset, limit, search, items, serialize(items), filters, groups, fields,
+                extraParams, cacheable, count);
+    }
+
+    public ImmutableContext<T> withFilter(FilterEntry filter) {
+        return new ImmutableContext<>(type, offset, limit, search, sorts, sort, filters.append(copy(filter)),
+                groups, fields, extraParams, cacheable, count);
+    }
+
+    /**
+     * Returns context without filters.
+     */
+    public ImmutableContext<T> withoutFilters() {
+        return filters.isEmpty() ? this : new ImmutableContext<>(type, offset, limit, search, sorts, sort,
+                PersistentList.empty(), groups, fields, extraParams, cacheable, count);
+    }
+
+    public ImmutableContext<T> withGroup(String group) {
+        return new ImmutableContext<>(type, offset, limit, search, sorts, sort, filters, groups.append(group),
+                fields, extraParams, cacheable, count);
+    }
+
+    /**
+     * Returns context with the field added to the projection, see {@link Context#setFields(java.util.Collection)}.
+     */
+    public ImmutableContext<T> withField(String field) {
+        return fields.contains(field) ? this : new ImmutableContext<>(type, offset, limit, search, sorts, sort,
+                filters, groups, fields.append(field), extraParams, cacheable, count);
+    }
+
+    public ImmutableContext<T> withExtraParam(String key, Object value) {
+        return new ImmutableContext<>(type, offset, limit, search, sorts, sort, filters, groups, fields,
+                extraParams.append(new AbstractMap.SimpleImmutableEntry<>(key, value)), cacheable, count);
+    }
+
+    public ImmutableContext<T> withCacheable(Boolean cacheable) {
+        return new ImmutableContext<>(type, offset, limit, search, sorts, sort, filters, groups, fields,
+                extraParams, cacheable, count);
+    }
+
+    public ImmutableContext<T> withCount(Long count) {
+        return new ImmutableContext<>(type, offset, limit, search, sorts, sort, filters, groups, fields,
+                extraParams, cacheable, count);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    /**
+     * Returns copy of the sort, changing it does not affect this context.
+     */
+    public APISort getSort() {
+        return APISort.create(new ArrayList<>(sorts));
+    }
+
+    /**
+     * Returns unmodifiable list of copies of the filters, changing them does not affect this context.
+     */
+    public List<FilterEntry> getFilters() {
+        return Collections.unmodifiableList(copyFilters());
+    }
+
+    public List<String> getGroups() {
+        return groups.toList();
+    }
+
+    public Set<String> getFields() {
+        return new LinkedHashSet<>(fields.toList());
+    }
+
+    /**
+     * Returns copy of extra parameters, changing it does not affect this context.
+     */
+    public MultiValuedMap<String, Object> getExtraParams() {
+        MultiValuedMap<String, Object> result = new HashSetValuedHashMap<>();
+        for (Map.Entry<String, Object> entry : extraParams.toList()) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public Boolean getCacheable() {
+        return cacheable;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns new mutable context with the same parameters.
+     */
+    public Context<T> toContext() {
+        Context<T> context = new Context<>(type, offset, limit, search, null, copyFilters(), groups.toArrayList())
+                .setSort(getSort())
+                .setFields(fields.toList())
+                .setCacheable(cacheable)
+                .setCount(count);
+        context.setExtraParams(getExtraParams());
+        return context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ImmutableContext<?> that = (ImmutableContext<?>) o;
+        return hash == that.hash
+                && offset == that.offset
+                && limit == that.limit
+                && type == that.type
+                && Objects.equals(search, that.search)
+                && sort.equals(that.sort)
+                && filters.equals(that.filters)
+                && groups.equals(that.groups)
+                && fields.equals(that.fields)
+                && extraParams.equals(that.extraParams);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImmutableContext{type=%s, offset=%d, limit=%d, search=%s, sort=%s, filters=%s, "
+                        + "groups=%s, fields=%s, extraParams=%s}", type.getSimpleName(), offset, limit, search, sort,
+                filters, groups, fields, extraParams);
+    }
+
+    private List<FilterEntry> copyFilters() {
+        List<FilterEntry> result = new ArrayList<>(filters.size());
+        for (FilterEntry filter : filters.toList()) {
+            result.add(copy(filter));
+        }
+        return result;
+    }
+
+    private static List<APISort.SortItem> copy(APISort sort) {
+        return sort == null || sort.isEmpty() ? List.of() : List.copyOf(sort.getSorts());
+    }
+
+    private static String serialize(List<APISort.SortItem> sorts) {
+        return APISort.create(sorts).serialize();
+    }
+
+    private static FilterEntry copy(FilterEntry filter) {
+        return FilterEntry.create(filter.getField(), filter.getOperand(), filter.getRawValue());
+    }
+}
@@ -0,0 +1,121 @@
+package com.testdroid.api.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable list which shares its elements with lists derived by {@link #append(Object)}, so appending is
+ * <code>O(1)</code>. Hash code, equal to {@link List#hashCode()} of the elements, is computed while appending.
+ */
+final class PersistentList<E> {
+
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null, null, 0, 1);
+
+    private final PersistentList<E> previous;
+
+    private final E last;
+
+    private final int size;
+
+    private final int hash;
+
+    private PersistentList(PersistentList<E> previous, E last, int size, int hash) {
+        this.previous = previous;
+        this.last = last;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    static <E> PersistentList<E> of(Collection<? extends E> elements) {
+        PersistentList<E> result = empty();
+        if (elements != null) {
+            for (E element : elements) {
+                result = result.append(element);
+            }
+        }
+        return result;
+    }
+
+    PersistentList<E> append(E element) {
+        return new PersistentList<>(this, element, size + 1, 31 * hash + Objects.hashCode(element));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(Object element) {
+        for (PersistentList<E> node = this; node.size > 0; node = node.previous) {
+            if (Objects.equals(node.last, element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns unmodifiable list of the elements, in the order of appending.
+     */
+    List<E> toList() {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        Object[] elements = new Object[size];
+        for (PersistentList<E> node = this; node.size > 0; node = node.previous) {
+            elements[node.size - 1] = node.last;
+        }
+        @SuppressWarnings("unchecked")
+        List<E> result = (List<E>) Arrays.asList(elements);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns modifiable copy of the elements, in the order of appending.
+     */
+    ArrayList<E> toArrayList() {
+        return new ArrayList<>(toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PersistentList)) {
+            return false;
+        }
+        PersistentList<?> node = (PersistentList<?>) o;
+        if (size != node.size || hash != node.hash) {
+            return false;
+        }
+        for (PersistentList<E> own = this; own.size > 0 && own != node; own = own.previous, node = node.previous) {
+            if (!Objects.equals(own.last, node.last)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
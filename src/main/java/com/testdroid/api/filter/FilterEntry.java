@@ -18,6 +18,8 @@ public class FilterEntry {
 
     private static final String ARG_DELIMITER = "|";
 
+    private static final char SEPARATOR = '_';
+
     private String field;
 
     private Operand operand;
@@ -91,8 +93,18 @@ public class FilterEntry {
 
     @Override
     public String toString() {
-        String result = String.format("%s_%s", field, operand);
-        return StringUtils.isNotBlank(rawValue) ? String.format("%s_%s", result, rawValue) : result;
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the URL form of this filter, as returned by {@link #toString()}, to the builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        builder.append(field).append(SEPARATOR).append(operand);
+        if (StringUtils.isNotBlank(rawValue)) {
+            builder.append(SEPARATOR).append(rawValue);
+        }
+        return builder;
     }
 
     //region Quick filters
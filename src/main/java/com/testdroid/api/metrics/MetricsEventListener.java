@@ -0,0 +1,187 @@
+package com.testdroid.api.metrics;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Measures phases of a single http call and reports them to {@link MetricsListener}. Phases interrupted by a failure
+ * are reported as failed, so every started phase is ended.
+ */
+public class MetricsEventListener extends EventListener {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final MetricsListener listener;
+
+    private final String method;
+
+    private final String uriTemplate;
+
+    private long callStart = NONE;
+
+    private long dnsStart = NONE;
+
+    private long connectStart = NONE;
+
+    private long secureConnectStart = NONE;
+
+    private long requestStart = NONE;
+
+    private long responseBodyStart = NONE;
+
+    private long requestBytes;
+
+    private long responseBytes;
+
+    private int status;
+
+    public MetricsEventListener(MetricsListener listener, String method, String uriTemplate) {
+        this.listener = listener;
+        this.method = method;
+        this.uriTemplate = uriTemplate;
+    }
+
+    /**
+     * Returns factory creating listener per call, tagged with URI template relative to <code>basePath</code>.
+     */
+    public static EventListener.Factory factory(MetricsListener listener, String basePath) {
+        return call -> {
+            String path = call.request().url().encodedPath();
+            if (path.startsWith(basePath)) {
+                path = path.substring(basePath.length());
+            }
+            return new MetricsEventListener(listener, call.request().method(), UriTemplates.normalize(path));
+        };
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        phase(MetricsListener.Phase.DNS, dnsStart);
+        dnsStart = NONE;
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        phase(MetricsListener.Phase.TLS, secureConnectStart);
+        secureConnectStart = NONE;
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        phase(MetricsListener.Phase.CONNECT, connectStart);
+        connectStart = NONE;
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+            IOException ioe) {
+        secureConnectStart = failed(MetricsListener.Phase.TLS, secureConnectStart, ioe);
+        connectStart = failed(MetricsListener.Phase.CONNECT, connectStart, ioe);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestBytes += byteCount;
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        phase(MetricsListener.Phase.TIME_TO_FIRST_BYTE, requestStart);
+        requestStart = NONE;
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        status = response.code();
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        responseBytes += byteCount;
+        phase(MetricsListener.Phase.BODY_READ, responseBodyStart);
+        responseBodyStart = NONE;
+    }
+
+    @Override
+    public void requestFailed(Call call, IOException ioe) {
+        requestStart = failed(MetricsListener.Phase.TIME_TO_FIRST_BYTE, requestStart, ioe);
+    }
+
+    @Override
+    public void responseFailed(Call call, IOException ioe) {
+        requestStart = failed(MetricsListener.Phase.TIME_TO_FIRST_BYTE, requestStart, ioe);
+        responseBodyStart = failed(MetricsListener.Phase.BODY_READ, responseBodyStart, ioe);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        phase(MetricsListener.Phase.CALL, callStart);
+        listener.onResponse(method, uriTemplate, status, requestBytes, responseBytes);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        dnsStart = failed(MetricsListener.Phase.DNS, dnsStart, ioe);
+        secureConnectStart = failed(MetricsListener.Phase.TLS, secureConnectStart, ioe);
+        connectStart = failed(MetricsListener.Phase.CONNECT, connectStart, ioe);
+        requestStart = failed(MetricsListener.Phase.TIME_TO_FIRST_BYTE, requestStart, ioe);
+        responseBodyStart = failed(MetricsListener.Phase.BODY_READ, responseBodyStart, ioe);
+        phase(MetricsListener.Phase.CALL, callStart);
+        listener.onFailure(method, uriTemplate, ioe);
+    }
+
+    private void phase(MetricsListener.Phase phase, long start) {
+        listener.onPhase(method, uriTemplate, phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Reports phase as failed if it has been started and not ended yet.
+     *
+     * @return start of the phase after it has been ended
+     */
+    private long failed(MetricsListener.Phase phase, long start, IOException ioe) {
+        if (start != NONE) {
+            listener.onPhaseFailed(method, uriTemplate, phase, System.nanoTime() - start, ioe);
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,59 @@
+package com.testdroid.api.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Instrumentation SPI of the API client. All methods have no-op defaults, so implementations override only
+ * what they need, e.g. to feed timers and counters of a metrics registry. Calls are tagged by HTTP method
+ * and URI template, see {@link UriTemplates#normalize(String)}. Methods are called on http threads
+ * and should not block.
+ */
+public interface MetricsListener {
+
+    MetricsListener NOOP = new MetricsListener() {
+    };
+
+    enum Phase {
+        DNS,
+        CONNECT,
+        TLS,
+        TIME_TO_FIRST_BYTE,
+        BODY_READ,
+        CALL
+    }
+
+    /**
+     * Called when a phase of the call has finished.
+     */
+    default void onPhase(String method, String uriTemplate, Phase phase, long nanos) {
+    }
+
+    /**
+     * Called when a phase of the call has been ended by a failure, e.g. connect to one of the addresses has been
+     * refused. The call may still succeed on another route or attempt.
+     */
+    default void onPhaseFailed(String method, String uriTemplate, Phase phase, long nanos, IOException exception) {
+    }
+
+    /**
+     * Called when the call has finished with a response.
+     *
+     * @param requestBytes  size of the request body sent
+     * @param responseBytes size of the response body read by the client
+     */
+    default void onResponse(String method, String uriTemplate, int status, long requestBytes, long responseBytes) {
+    }
+
+    /**
+     * Called when the call has failed without response, e.g. on connection error or timeout.
+     */
+    default void onFailure(String method, String uriTemplate, IOException exception) {
+    }
+
+    /**
+     * Called when JSON content has been parsed. For streamed responses it includes reading the body.
+     */
+    default void onParse(Type type, long nanos, boolean success) {
+    }
+}
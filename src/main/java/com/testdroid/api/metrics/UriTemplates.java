@@ -0,0 +1,42 @@
+package com.testdroid.api.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes URIs to templates to keep cardinality of metric tags bounded.
+ */
+public class UriTemplates {
+
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private UriTemplates() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Replaces numeric and UUID path segments with <code>{id}</code> and drops query,
+     * e.g. <code>/users/1/projects/2/runs?limit=10</code> becomes <code>/users/{id}/projects/{id}/runs</code>.
+     */
+    public static String normalize(String uri) {
+        int queryStart = uri.indexOf('?');
+        String path = queryStart < 0 ? uri : uri.substring(0, queryStart);
+        StringBuilder result = new StringBuilder(path.length());
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start, end);
+            result.append(ID_SEGMENT.matcher(segment).matches() ? ID_PLACEHOLDER : segment);
+            if (end < path.length()) {
+                result.append('/');
+            }
+            start = end + 1;
+        }
+        return result.toString();
+    }
+}
@@ -6,11 +6,15 @@ import com.testdroid.api.APIException;
 import com.testdroid.api.APIListResource;
 import com.testdroid.api.UiPresentable;
 import com.testdroid.api.dto.Context;
+import com.testdroid.api.download.DownloadOptions;
+import com.testdroid.api.upload.StreamingRequestBody;
 import com.testdroid.api.util.TimeConverter;
 
 import jakarta.xml.bind.annotation.XmlType;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.Map;
@@ -522,6 +526,16 @@ public class APIDeviceSession extends APIEntity implements UiPresentable {
         return client.get(createUri(selfURI, "/output-file-set/files.zip"));
     }
 
+    /**
+     * Downloads zip of output files to <code>target</code>, resuming the transfer after failures.
+     *
+     * @return size of the downloaded file
+     */
+    @JsonIgnore
+    public long downloadOutputFiles(Path target, DownloadOptions options) throws APIException {
+        return downloadFile(createUri(selfURI, "/output-file-set/files.zip"), target, options);
+    }
+
     @JsonIgnore
     public APIDeviceSession release() throws APIException {
         return client.post(createUri(selfURI, "/release"), null, APIDeviceSession.class);
@@ -542,6 +556,38 @@ public class APIDeviceSession extends APIEntity implements UiPresentable {
         return postFile(createUri(selfURI, "/output-file-set/files"), file, fileParams, contentType, APIUserFile.class);
     }
 
+    @JsonIgnore
+    public APIUserFile uploadResultsFile(Path path, String contentType, Map<String, String> fileParams)
+            throws APIException {
+        try {
+            return uploadResultsFile(StreamingRequestBody.create(path, contentType), fileParams);
+        } catch (IOException e) {
+            throw new APIException(String.format("Failed to read %s", path), e);
+        }
+    }
+
+    /**
+     * Uploads content of the stream without buffering it in memory. Stream is not closed.
+     *
+     * @param contentLength number of bytes in the stream or <code>-1</code> if unknown
+     */
+    @JsonIgnore
+    public APIUserFile uploadResultsFile(
+            InputStream inputStream, String fileName, long contentLength, String contentType,
+            Map<String, String> fileParams) throws APIException {
+        return uploadResultsFile(StreamingRequestBody.create(inputStream, fileName, contentType, contentLength),
+                fileParams);
+    }
+
+    /**
+     * Uploads streamed results file, use it to track progress or cancel the upload.
+     */
+    @JsonIgnore
+    public APIUserFile uploadResultsFile(StreamingRequestBody body, Map<String, String> fileParams)
+            throws APIException {
+        return postFile(createUri(selfURI, "/output-file-set/files"), body, fileParams, APIUserFile.class);
+    }
+
     @Override
     protected <T extends APIEntity> void clone(T from) {
         APIDeviceSession apiDeviceSession = (APIDeviceSession) from;
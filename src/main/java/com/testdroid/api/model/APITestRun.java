@@ -1,6 +1,7 @@
 package com.testdroid.api.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.testdroid.api.APIClient;
 import com.testdroid.api.APIEntity;
 import com.testdroid.api.APIException;
 import com.testdroid.api.APIListResource;
@@ -455,6 +456,11 @@ public class APITestRun extends APIEntity implements UiPresentable {
         this.uiLink = uiLink;
     }
 
+    @JsonIgnore
+    APIClient getAPIClient() {
+        return client;
+    }
+
     @JsonIgnore
     public APIListResource<APIDeviceSession> getDeviceSessionsResource() throws APIException {
         return getListResource(getDeviceSessionsURI(), APIDeviceSession.class);
@@ -133,6 +133,17 @@ public class APITestRunConfig extends APIEntity implements Serializable {
         // need for serialization/deserialization
     }
 
+    /**
+     * Returns shallow copy of this config with its own list of files, which can be extended without changing
+     * this config.
+     */
+    public APITestRunConfig copy() {
+        APITestRunConfig copy = new APITestRunConfig();
+        copy.clone(this);
+        copy.files = new ArrayList<>(Optional.ofNullable(files).orElse(List.of()));
+        return copy;
+    }
+
     public Long getProjectId() {
         return projectId;
     }
@@ -7,10 +7,14 @@ import com.testdroid.api.APIException;
 import com.testdroid.api.APIListResource;
 import com.testdroid.api.dto.Context;
 import com.testdroid.api.model.notification.APINotification;
+import com.testdroid.api.upload.StreamingRequestBody;
 import com.testdroid.api.util.TimeConverter;
 
 import jakarta.xml.bind.annotation.XmlType;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -502,6 +506,33 @@ public class APIUser extends APIEntity {
         return postFile(createUri(selfURI, "/files"), file, emptyMap(), null, APIUserFile.class);
     }
 
+    @JsonIgnore
+    public APIUserFile uploadFile(Path path) throws APIException {
+        try {
+            return uploadFile(StreamingRequestBody.create(path, null));
+        } catch (IOException e) {
+            throw new APIException(String.format("Failed to read %s", path), e);
+        }
+    }
+
+    /**
+     * Uploads content of the stream without buffering it in memory. Stream is not closed.
+     *
+     * @param contentLength number of bytes in the stream or <code>-1</code> if unknown
+     */
+    @JsonIgnore
+    public APIUserFile uploadFile(InputStream inputStream, String fileName, long contentLength) throws APIException {
+        return uploadFile(StreamingRequestBody.create(inputStream, fileName, null, contentLength));
+    }
+
+    /**
+     * Uploads streamed file, use it to track progress or cancel the upload.
+     */
+    @JsonIgnore
+    public APIUserFile uploadFile(StreamingRequestBody body) throws APIException {
+        return postFile(createUri(selfURI, "/files"), body, emptyMap(), APIUserFile.class);
+    }
+
     @JsonIgnore
     public APIUserFile getFile(Long id) throws APIException {
         return getResource(createUri(selfURI, String.format("/files/%s", id)), APIUserFile.class).getEntity();
@@ -1,17 +1,23 @@
 package com.testdroid.api.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.testdroid.api.APIClient;
 import com.testdroid.api.APIEntity;
 import com.testdroid.api.APIException;
 import com.testdroid.api.APIListResource;
+import com.testdroid.api.download.DownloadOptions;
 import com.testdroid.api.util.TimeConverter;
 
 import jakarta.xml.bind.annotation.XmlType;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import static com.testdroid.api.model.APIUserFileProperty.VirusScanStatus;
@@ -26,7 +32,7 @@ public class APIUserFile extends APIEntity implements Serializable {
 
     public static final long VIRUS_SCAN_TIMEOUT_DEFAULT = 5 * 60 * 1000L;
 
-    private static final Set<String> VIRUS_SCAN_ACCEPTED_VALUES = Collections.unmodifiableSet(
+    static final Set<String> VIRUS_SCAN_ACCEPTED_VALUES = Collections.unmodifiableSet(
             new HashSet<>(Arrays.asList(VirusScanStatus.SAFE.value(), VirusScanStatus.DISABLED.value(), null)));
 
     private Date createTime;
@@ -242,11 +248,36 @@ public class APIUserFile extends APIEntity implements Serializable {
         return getFile(createUri(selfURI, "/icon"));
     }
 
+    /**
+     * Returns content of the file. Closing the stream releases the connection, so it has to be closed.
+     */
     @JsonIgnore
     public InputStream getFile() throws APIException {
         return getFile(createUri(selfURI, "/file"));
     }
 
+    /**
+     * Downloads content of the file to <code>target</code> and verifies its size.
+     *
+     * @return size of the downloaded file
+     */
+    @JsonIgnore
+    public long download(Path target) throws APIException {
+        return download(target, new DownloadOptions());
+    }
+
+    /**
+     * @see #download(Path)
+     */
+    @JsonIgnore
+    public long download(Path target, DownloadOptions options) throws APIException {
+        DownloadOptions fileOptions = options.copy();
+        if (fileOptions.getExpectedSize() == null) {
+            fileOptions.setExpectedSize(size);
+        }
+        return downloadFile(createUri(selfURI, "/file"), target, fileOptions);
+    }
+
     @JsonIgnore
     public APIListResource<APIUserFileTag> getTagsResource() throws APIException {
         return getListResource(createUri(selfURI, "/tags"), APIUserFileTag.class);
@@ -261,48 +292,63 @@ public class APIUserFile extends APIEntity implements Serializable {
     }
 
     public APIUserFile waitForVirusScan(long timeout) throws APIException, InterruptedException {
-        long end = System.currentTimeMillis() + timeout;
-        String virusScanStatus;
-        while (end > System.currentTimeMillis()) {
-            refresh();
-            virusScanStatus = getVirusScanStatus();
-            if (VirusScanStatus.INFECTED.value().equals(virusScanStatus)) {
-                throw new APIException(400, "File rejected by virus scan");
-            } else if (VIRUS_SCAN_ACCEPTED_VALUES.contains(virusScanStatus)) {
-                return this;
-            }
-            Thread.sleep(500);
-        }
-        throw new APIException(408, "Waiting for virus scan timed out");
+        return await(waitForVirusScanAsync(Duration.ofMillis(timeout)));
+    }
+
+    /**
+     * Returns future completed with this file, refreshed, when its virus scan is accepted.
+     *
+     * @see VirusScanWaiter#waitFor(APIUserFile, Duration)
+     */
+    public CompletableFuture<APIUserFile> waitForVirusScanAsync(Duration timeout) {
+        return VirusScanWaiter.getShared().waitFor(this, timeout);
     }
 
     public static void waitForVirusScans(APIUserFile... files) throws APIException, InterruptedException {
         waitForVirusScans(VIRUS_SCAN_TIMEOUT_DEFAULT, files);
     }
 
+    /**
+     * Waits until virus scans of all files are accepted. Statuses are checked in batches, fails as soon as
+     * any of the files is rejected.
+     */
     public static void waitForVirusScans(long timeout, APIUserFile... files) throws APIException, InterruptedException {
-        long end = System.currentTimeMillis() + timeout;
         List<APIUserFile> filteredFiles = Arrays.stream(files).filter(Objects::nonNull).collect(Collectors.toList());
-        while (end > System.currentTimeMillis()) {
-            for (APIUserFile file : filteredFiles) {
-                if (!VIRUS_SCAN_ACCEPTED_VALUES.contains(file.getVirusScanStatus())) {
-                    file.refresh();
-                }
-            }
-            if (filteredFiles.stream().map(APIUserFile::getVirusScanStatus)
-                    .anyMatch(VirusScanStatus.INFECTED.value()::equals)) {
-                throw new APIException(400, "File rejected by virus scan");
+        List<CompletableFuture<APIUserFile>> futures = VirusScanWaiter.getShared()
+                .waitFor(filteredFiles, Duration.ofMillis(timeout));
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+        futures.forEach(future -> future.whenComplete((file, throwable) -> {
+            if (throwable != null) {
+                all.completeExceptionally(throwable);
             }
-            if (filteredFiles.stream().map(APIUserFile::getVirusScanStatus)
-                    .allMatch(VIRUS_SCAN_ACCEPTED_VALUES::contains)) {
-                return;
+        }));
+        try {
+            await(all);
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws APIException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APIException apiException) {
+                throw apiException;
             }
-            Thread.sleep(500);
+            throw new APIException(e.getCause());
         }
-        throw new APIException(408, "Waiting for virus scan timed out");
     }
 
-    private String getVirusScanStatus() {
+    @JsonIgnore
+    APIClient getAPIClient() {
+        return client;
+    }
+
+    String getVirusScanStatus() {
         return getFileProperties().stream()
                 .filter(p -> APIUserFileProperty.Key.VIRUS_SCAN_STATUS.value().equals(p.getKey()))
                 .map(APIUserFileProperty::getValue).findAny().orElse(null);
@@ -0,0 +1,28 @@
+package com.testdroid.api.model;
+
+import com.testdroid.api.APIException;
+
+/**
+ * Receives progress of test runs tracked by {@link TestRunWatcher}. Methods are called on the scheduler thread of
+ * the watcher and should not block.
+ */
+public interface TestRunListener {
+
+    /**
+     * Called when state of the run has changed, <code>run</code> is already refreshed.
+     */
+    default void onStateChanged(APITestRun run, APITestRun.State previousState) {
+    }
+
+    /**
+     * Called once for each device session of the run which has finished.
+     */
+    default void onDeviceSessionFinished(APITestRun run, APIDeviceSession deviceSession) {
+    }
+
+    /**
+     * Called when status of the run could not be checked. Watching continues until the watch timeout elapses.
+     */
+    default void onError(APITestRun run, APIException exception) {
+    }
+}
@@ -0,0 +1,406 @@
+package com.testdroid.api.model;
+
+import com.testdroid.api.APIClient;
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIList;
+import com.testdroid.api.APIRuntimeException;
+import com.testdroid.api.APISort;
+import com.testdroid.api.AsyncAPIClient;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.Operand;
+import com.testdroid.api.filter.FilterEntry;
+import com.testdroid.api.util.TimeConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.testdroid.api.dto.MappingKey.END_TIME;
+import static com.testdroid.api.dto.MappingKey.ID;
+import static com.testdroid.api.dto.MappingKey.STATE;
+
+/**
+ * Tracks many test runs from a single scheduler thread until they are finished. Due runs are checked in batches,
+ * one list request with <code>id IN (...)</code> filter per runs resource, instead of refreshing each run.
+ * Interval between checks of a run adapts to its progress: it shrinks while <code>executionRatio</code> grows
+ * and backs off while the run is waiting for devices or makes no progress. Responses are processed and listeners
+ * are notified on the scheduler thread, finished device sessions are fetched only when finished device count of
+ * the run changes, and only those which finished since the previous fetch. State is guarded by a lock rather than
+ * a monitor, so virtual threads calling the watcher are not pinned to their carriers.
+ */
+public class TestRunWatcher implements Closeable {
+
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofSeconds(2);
+
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMinutes(1);
+
+    public static final int BATCH_SIZE = 100;
+
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+
+    private static final float NEARLY_FINISHED_RATIO = 0.9f;
+
+    private static final List<APIDeviceSession.State> FINISHED_SESSION_STATES = Arrays
+            .stream(APIDeviceSession.State.values()).filter(APIDeviceSession.State::isFinished)
+            .collect(Collectors.toList());
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestRunWatcher.class);
+
+    private final ScheduledExecutorService scheduler;
+
+    private final boolean ownScheduler;
+
+    private final long minDelay;
+
+    private final long maxDelay;
+
+    private final Map<RunsKey, Map<Long, Watch>> watches = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ScheduledFuture<?> nextCheck;
+
+    private long nextCheckAt;
+
+    private boolean checking;
+
+    public TestRunWatcher() {
+        this(DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    public TestRunWatcher(Duration minDelay, Duration maxDelay) {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-run-watcher");
+            thread.setDaemon(true);
+            return thread;
+        }), true, minDelay, maxDelay);
+    }
+
+    /**
+     * @param scheduler scheduler of status checks, it is not shut down on {@link #close()}
+     */
+    public TestRunWatcher(ScheduledExecutorService scheduler, Duration minDelay, Duration maxDelay) {
+        this(scheduler, false, minDelay, maxDelay);
+    }
+
+    private TestRunWatcher(
+            ScheduledExecutorService scheduler, boolean ownScheduler, Duration minDelay, Duration maxDelay) {
+        this.scheduler = scheduler;
+        this.ownScheduler = ownScheduler;
+        this.minDelay = minDelay.toNanos();
+        this.maxDelay = maxDelay.toNanos();
+    }
+
+    /**
+     * Starts watching the run. Returned future is completed with the refreshed run when it is finished, or fails
+     * with {@link APIException} when <code>timeout</code> elapses. Cancelling the future stops watching the run.
+     *
+     * @param listener listener of state changes and finished device sessions, may be <code>null</code>
+     */
+    public CompletableFuture<APITestRun> watch(APITestRun run, TestRunListener listener, Duration timeout) {
+        String selfURI = run.getSelfURI();
+        if (selfURI == null || run.getAPIClient() == null) {
+            return CompletableFuture.failedFuture(new APIException("Missing API client"));
+        }
+        RunsKey key = new RunsKey(run.getAPIClient(), selfURI.substring(0, selfURI.lastIndexOf('/')));
+        long now = System.nanoTime();
+        Watch watch = new Watch(run, Optional.ofNullable(listener).orElse(new TestRunListener() {
+        }), now + timeout.toNanos());
+        lock.lock();
+        try {
+            Watch existing = watches.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                    .putIfAbsent(run.getId(), watch);
+            if (existing != null) {
+                return CompletableFuture.failedFuture(
+                        new APIException(String.format("Test run %d is already watched", run.getId())));
+            }
+            watch.nextCheckAt = now;
+            scheduleCheck(now);
+        } finally {
+            lock.unlock();
+        }
+        watch.future.whenComplete((result, throwable) -> remove(key, watch));
+        return watch.future;
+    }
+
+    public CompletableFuture<APITestRun> watch(APITestRun run, Duration timeout) {
+        return watch(run, null, timeout);
+    }
+
+    /**
+     * Stops checks and fails futures of all watched runs.
+     */
+    @Override
+    public void close() {
+        List<Watch> cancelled;
+        lock.lock();
+        try {
+            cancelled = watches.values().stream().flatMap(runs -> runs.values().stream())
+                    .collect(Collectors.toList());
+            watches.clear();
+            if (nextCheck != null) {
+                nextCheck.cancel(false);
+                nextCheck = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        cancelled.forEach(watch -> watch.future.completeExceptionally(new APIException("Watcher closed")));
+        if (ownScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void remove(RunsKey key, Watch watch) {
+        lock.lock();
+        try {
+            Map<Long, Watch> runs = watches.get(key);
+            if (runs != null && runs.remove(watch.run.getId(), watch) && runs.isEmpty()) {
+                watches.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules next check at <code>checkAt</code>, unless an earlier one is already scheduled.
+     */
+    private void scheduleCheck(long checkAt) {
+        if (checking || watches.isEmpty() || (nextCheck != null && nextCheckAt - checkAt <= 0)) {
+            return;
+        }
+        if (nextCheck != null) {
+            nextCheck.cancel(false);
+        }
+        nextCheckAt = checkAt;
+        nextCheck = scheduler.schedule(this::check, Math.max(0, checkAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        Map<RunsKey, List<Watch>> due = new HashMap<>();
+        lock.lock();
+        try {
+            nextCheck = null;
+            checking = true;
+            watches.forEach((key, runs) -> {
+                List<Watch> dueRuns = runs.values().stream().filter(watch -> watch.nextCheckAt - now <= 0)
+                        .collect(Collectors.toList());
+                if (!dueRuns.isEmpty()) {
+                    due.put(key, dueRuns);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+        try {
+            due.forEach((key, runs) -> {
+                List<Watch> active = runs.stream().filter(watch -> !expire(watch, now)).collect(Collectors.toList());
+                for (int i = 0; i < active.size(); i += BATCH_SIZE) {
+                    checks.add(checkBatch(key, active.subList(i, Math.min(i + BATCH_SIZE, active.size()))));
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to check test runs", e);
+        }
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).whenComplete((result, throwable) -> {
+            lock.lock();
+            try {
+                checking = false;
+                watches.values().stream().flatMap(runs -> runs.values().stream())
+                        .mapToLong(watch -> watch.nextCheckAt)
+                        .reduce((first, second) -> first - second <= 0 ? first : second)
+                        .ifPresent(this::scheduleCheck);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private static boolean expire(Watch watch, long now) {
+        if (now - watch.deadline >= 0) {
+            watch.future.completeExceptionally(new APIException(408, "Waiting for test run timed out"));
+        }
+        return watch.future.isDone();
+    }
+
+    private CompletableFuture<Void> checkBatch(RunsKey key, List<Watch> batch) {
+        Context<APITestRun> context = new Context<>(APITestRun.class).setLimit(batch.size())
+                .addFilter(new FilterEntry(ID, Operand.IN, batch.stream().map(watch -> watch.run.getId())
+                        .collect(Collectors.toList())));
+        return getList(key.client, key.listURI, context).handleAsync((result, throwable) -> {
+            long now = System.nanoTime();
+            if (throwable != null) {
+                APIException exception = toAPIException(throwable);
+                batch.forEach(watch -> {
+                    notify(watch, () -> watch.listener.onError(watch.run, exception));
+                    watch.backOff(now);
+                });
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            Map<Long, APITestRun> runs = result.getData().stream()
+                    .collect(Collectors.toMap(APITestRun::getId, Function.identity(), (first, second) -> first));
+            List<CompletableFuture<Void>> updates = new ArrayList<>();
+            for (Watch watch : batch) {
+                APITestRun run = runs.get(watch.run.getId());
+                if (run == null) {
+                    watch.backOff(now);
+                } else {
+                    updates.add(update(key.client, watch, run, now));
+                }
+            }
+            return CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new));
+        }, scheduler).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> update(APIClient client, Watch watch, APITestRun refreshed, long now) {
+        APITestRun.State previousState = watch.run.getState();
+        Float previousRatio = watch.run.getExecutionRatio();
+        Integer previousFinished = watch.run.getFinishedDeviceCount();
+        watch.run.clone(refreshed);
+        APITestRun run = watch.run;
+        if (previousState != run.getState()) {
+            notify(watch, () -> watch.listener.onStateChanged(run, previousState));
+        }
+        CompletableFuture<Void> sessions = CompletableFuture.completedFuture(null);
+        if (run.getState() == APITestRun.State.FINISHED
+                || !Objects.equals(previousFinished, run.getFinishedDeviceCount())) {
+            sessions = notifyFinishedSessions(client, watch);
+        }
+        if (run.getState() == APITestRun.State.FINISHED) {
+            return sessions.thenRun(() -> watch.future.complete(run));
+        }
+        float ratio = Optional.ofNullable(run.getExecutionRatio()).orElse(0f);
+        boolean progressing = previousRatio != null && ratio > previousRatio;
+        boolean waitingForDevices = Optional.ofNullable(run.getWaitingDeviceCount()).orElse(0) > 0
+                && Optional.ofNullable(run.getRunningDeviceCount()).orElse(0) == 0;
+        if (ratio >= NEARLY_FINISHED_RATIO) {
+            watch.delay = minDelay;
+        } else if (progressing && !waitingForDevices) {
+            watch.delay = Math.max(minDelay, watch.delay / 2);
+        } else {
+            watch.delay = Math.min(maxDelay, (long) (watch.delay * BACKOFF_MULTIPLIER));
+        }
+        watch.nextCheckAt = now + watch.delay;
+        return sessions;
+    }
+
+    /**
+     * Fetches device sessions of the run finished since the previous fetch, oldest first, and notifies listener of
+     * the ones not seen yet. Returned future never fails, errors are passed to the listener.
+     */
+    private CompletableFuture<Void> notifyFinishedSessions(APIClient client, Watch watch) {
+        Context<APIDeviceSession> context = new Context<>(APIDeviceSession.class).setLimit(BATCH_SIZE)
+                .setSort(APISort.create(List.of(new APISort.SortItem(END_TIME, APISort.Type.ASC),
+                        new APISort.SortItem(ID, APISort.Type.ASC))))
+                .addFilter(new FilterEntry(STATE, Operand.IN, FINISHED_SESSION_STATES));
+        if (watch.sessionsFinishedSince != null) {
+            // sessions which finished in the same millisecond as the last seen one are skipped by finishedSessions
+            context.addFilter(new FilterEntry(END_TIME, Operand.AFTEROREQUAL, watch.sessionsFinishedSince));
+        }
+        String uri = String.format("%s/device-sessions", watch.run.getSelfURI());
+        return notifyFinishedSessions(client, watch, uri, context).exceptionally(throwable -> {
+            APIException exception = toAPIException(throwable);
+            notify(watch, () -> watch.listener.onError(watch.run, exception));
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> notifyFinishedSessions(
+            APIClient client, Watch watch, String uri, Context<APIDeviceSession> context) {
+        return getList(client, uri, context).thenComposeAsync(page -> {
+            for (APIDeviceSession session : page.getData()) {
+                if (session.getEndTime() != null) {
+                    LocalDateTime endTime = TimeConverter.toLocalDateTime(session.getEndTime());
+                    if (watch.sessionsFinishedSince == null || endTime.isAfter(watch.sessionsFinishedSince)) {
+                        watch.sessionsFinishedSince = endTime;
+                    }
+                }
+                if (watch.finishedSessions.add(session.getId())) {
+                    notify(watch, () -> watch.listener.onDeviceSessionFinished(watch.run, session));
+                }
+            }
+            int nextOffset = context.getOffset() + page.getData().size();
+            if (page.getData().isEmpty() || page.getTotal() == null || nextOffset >= page.getTotal()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return notifyFinishedSessions(client, watch, uri, context.copy().setOffset(nextOffset));
+        }, scheduler);
+    }
+
+    /**
+     * Gets the list with asynchronous client, or on the scheduler thread if the client does not support it.
+     */
+    private <T extends APIEntity> CompletableFuture<APIList<T>> getList(
+            APIClient client, String uri, Context<T> context) {
+        if (client instanceof AsyncAPIClient asyncClient) {
+            return asyncClient.getAsync(uri, context);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.get(uri, context);
+            } catch (APIException e) {
+                throw new CompletionException(e);
+            }
+        }, scheduler);
+    }
+
+    private static APIException toAPIException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        if (cause instanceof APIRuntimeException runtimeException) {
+            cause = runtimeException.getCause();
+        }
+        return cause instanceof APIException apiException ? apiException : new APIException(cause);
+    }
+
+    private static void notify(Watch watch, Runnable notification) {
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Test run listener failed for test run {}", watch.run.getId(), e);
+        }
+    }
+
+    private record RunsKey(APIClient client, String listURI) {
+    }
+
+    private class Watch {
+
+        private final APITestRun run;
+
+        private final TestRunListener listener;
+
+        private final long deadline;
+
+        private final CompletableFuture<APITestRun> future = new CompletableFuture<>();
+
+        private final Set<Long> finishedSessions = ConcurrentHashMap.newKeySet();
+
+        private volatile LocalDateTime sessionsFinishedSince;
+
+        private volatile long delay = minDelay;
+
+        private volatile long nextCheckAt;
+
+        private Watch(APITestRun run, TestRunListener listener, long deadline) {
+            this.run = run;
+            this.listener = listener;
+            this.deadline = deadline;
+        }
+
+        private void backOff(long now) {
+            delay = Math.min(maxDelay, (long) (delay * BACKOFF_MULTIPLIER));
+            nextCheckAt = now + delay;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.testdroid.api.model;
+
+import com.testdroid.api.APIClient;
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIList;
+import com.testdroid.api.AsyncAPIClient;
+import com.testdroid.api.concurrent.CallExecutors;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.Operand;
+import com.testdroid.api.filter.FilterEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.testdroid.api.dto.MappingKey.ID;
+
+/**
+ * Waits for virus scans of uploaded files using a single scheduler thread, without blocking callers.
+ * Statuses of pending files are checked in batches - one list request with <code>id IN (...)</code> filter per
+ * files resource and API client - and the interval between checks grows while no scan finishes. Clients which are
+ * not {@link AsyncAPIClient} are polled on threads of {@link CallExecutors}, so blocking requests do not hold up
+ * the scheduler. Callers waiting for the same file share a single check, but each of them gets its own future. State is guarded by a lock rather
+ * than a monitor, so virtual threads calling the waiter are not pinned to their carriers.
+ */
+public class VirusScanWaiter implements Closeable {
+
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(500);
+
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(5);
+
+    public static final int BATCH_SIZE = 100;
+
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirusScanWaiter.class);
+
+    private static final ReentrantLock SHARED_LOCK = new ReentrantLock();
+
+    private static VirusScanWaiter shared;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService blockingExecutor = CallExecutors.newPerCallExecutor();
+
+    private final boolean ownScheduler;
+
+    private final long initialDelay;
+
+    private final long maxDelay;
+
+    private final Map<FilesKey, Map<Long, Pending>> pending = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long delay;
+
+    private ScheduledFuture<?> nextCheck;
+
+    private boolean checking;
+
+    public VirusScanWaiter() {
+        this(DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    public VirusScanWaiter(Duration initialDelay, Duration maxDelay) {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "virus-scan-waiter");
+            thread.setDaemon(true);
+            return thread;
+        }), true, initialDelay, maxDelay);
+    }
+
+    /**
+     * @param scheduler scheduler of status checks, it is not shut down on {@link #close()}
+     */
+    public VirusScanWaiter(ScheduledExecutorService scheduler, Duration initialDelay, Duration maxDelay) {
+        this(scheduler, false, initialDelay, maxDelay);
+    }
+
+    private VirusScanWaiter(
+            ScheduledExecutorService scheduler, boolean ownScheduler, Duration initialDelay, Duration maxDelay) {
+        this.scheduler = scheduler;
+        this.ownScheduler = ownScheduler;
+        this.initialDelay = initialDelay.toMillis();
+        this.maxDelay = maxDelay.toMillis();
+        this.delay = this.initialDelay;
+    }
+
+    /**
+     * Returns waiter shared by {@link APIUserFile#waitForVirusScan()} and {@link APIUserFile#waitForVirusScans}.
+     */
+    public static VirusScanWaiter getShared() {
+        SHARED_LOCK.lock();
+        try {
+            if (shared == null) {
+                shared = new VirusScanWaiter();
+            }
+            return shared;
+        } finally {
+            SHARED_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Returns future completed with the refreshed file when its scan is accepted. The given instance is refreshed
+     * and returned, also when other callers wait for another instance of the same file. Future fails with
+     * {@link APIException} when the file is infected, status cannot be checked or <code>timeout</code> elapses.
+     * Cancelling the future stops waiting of this caller only, the file is no longer checked once all callers
+     * waiting for it cancel.
+     */
+    public CompletableFuture<APIUserFile> waitFor(APIUserFile file, Duration timeout) {
+        String selfURI = file.getSelfURI();
+        if (selfURI == null || file.getAPIClient() == null) {
+            return CompletableFuture.failedFuture(new APIException("Missing API client"));
+        }
+        FilesKey key = new FilesKey(file.getAPIClient(), selfURI.substring(0, selfURI.lastIndexOf('/')));
+        Pending waiting = new Pending(file, new CompletableFuture<>(), System.nanoTime() + timeout.toNanos(),
+                new AtomicInteger());
+        Pending existing;
+        lock.lock();
+        try {
+            existing = pending.computeIfAbsent(key, k -> new LinkedHashMap<>()).putIfAbsent(file.getId(), waiting);
+            if (existing == null) {
+                delay = initialDelay;
+                scheduleCheck(0);
+            } else {
+                waiting = existing;
+            }
+            waiting.callers.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        Pending shared = waiting;
+        if (existing == null) {
+            shared.future.whenComplete((result, throwable) -> remove(key, shared));
+        }
+        CompletableFuture<APIUserFile> caller = shared.future.thenApply(scanned -> {
+            if (scanned != file) {
+                file.clone(scanned);
+            }
+            return file;
+        });
+        caller.whenComplete((result, throwable) -> {
+            if (!shared.future.isDone()) {
+                abandon(key, shared);
+            }
+        });
+        return caller;
+    }
+
+    public List<CompletableFuture<APIUserFile>> waitFor(Collection<APIUserFile> files, Duration timeout) {
+        return files.stream().map(file -> waitFor(file, timeout)).collect(Collectors.toList());
+    }
+
+    /**
+     * Stops checks and fails all pending futures.
+     */
+    @Override
+    public void close() {
+        List<Pending> cancelled;
+        lock.lock();
+        try {
+            cancelled = pending.values().stream().flatMap(files -> files.values().stream())
+                    .collect(Collectors.toList());
+            pending.clear();
+            if (nextCheck != null) {
+                nextCheck.cancel(false);
+                nextCheck = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        cancelled.forEach(waiting -> waiting.future.completeExceptionally(new APIException("Waiter closed")));
+        if (ownScheduler) {
+            scheduler.shutdownNow();
+        }
+        blockingExecutor.shutdownNow();
+    }
+
+    private void remove(FilesKey key, Pending waiting) {
+        lock.lock();
+        try {
+            Map<Long, Pending> files = pending.get(key);
+            if (files != null && files.remove(waiting.file.getId(), waiting) && files.isEmpty()) {
+                pending.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops checking the file when its last caller gave up waiting.
+     */
+    private void abandon(FilesKey key, Pending waiting) {
+        lock.lock();
+        try {
+            if (waiting.callers.decrementAndGet() > 0) {
+                return;
+            }
+            remove(key, waiting);
+        } finally {
+            lock.unlock();
+        }
+        waiting.future.cancel(false);
+    }
+
+    private void scheduleCheck(long delayMillis) {
+        if (nextCheck == null && !checking && !pending.isEmpty()) {
+            nextCheck = scheduler.schedule(this::check, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void check() {
+        Map<FilesKey, List<Pending>> snapshot = new HashMap<>();
+        lock.lock();
+        try {
+            nextCheck = null;
+            checking = true;
+            pending.forEach((key, files) -> snapshot.put(key, new ArrayList<>(files.values())));
+        } finally {
+            lock.unlock();
+        }
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        try {
+            long now = System.nanoTime();
+            snapshot.forEach((key, files) -> {
+                List<Pending> waiting = files.stream().filter(file -> !expire(file, now)).collect(Collectors.toList());
+                for (int i = 0; i < waiting.size(); i += BATCH_SIZE) {
+                    checks.add(checkBatch(key, waiting.subList(i, Math.min(i + BATCH_SIZE, waiting.size()))));
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to check virus scan status", e);
+        }
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).whenComplete((result, throwable) -> {
+            boolean finished = checks.stream()
+                    .anyMatch(batch -> !batch.isCompletedExceptionally() && batch.getNow(false));
+            lock.lock();
+            try {
+                checking = false;
+                delay = finished ? initialDelay : Math.min(maxDelay, (long) (delay * BACKOFF_MULTIPLIER));
+                scheduleCheck(delay);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private static boolean expire(Pending waiting, long now) {
+        if (now - waiting.deadline >= 0) {
+            waiting.future.completeExceptionally(new APIException(408, "Waiting for virus scan timed out"));
+        }
+        return waiting.future.isDone();
+    }
+
+    /**
+     * Fetches given files with a single request and completes futures of finished scans.
+     *
+     * @return future of <code>true</code> if any of the futures was completed
+     */
+    private CompletableFuture<Boolean> checkBatch(FilesKey key, List<Pending> batch) {
+        Context<APIUserFile> context = new Context<>(APIUserFile.class).setLimit(batch.size())
+                .addFilter(new FilterEntry(ID, Operand.IN, batch.stream().map(waiting -> waiting.file.getId())
+                        .collect(Collectors.toList())));
+        CompletableFuture<APIList<APIUserFile>> list;
+        if (key.client instanceof AsyncAPIClient asyncClient) {
+            list = asyncClient.getAsync(key.listURI, context);
+        } else {
+            CompletableFuture<APIList<APIUserFile>> blockingList = new CompletableFuture<>();
+            blockingExecutor.execute(() -> {
+                try {
+                    blockingList.complete(key.client.get(key.listURI, context));
+                } catch (APIException | RuntimeException e) {
+                    blockingList.completeExceptionally(e);
+                }
+            });
+            list = blockingList;
+        }
+        return list.handle((result, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                batch.forEach(waiting -> waiting.future.completeExceptionally(cause));
+                return true;
+            }
+            Map<Long, APIUserFile> files = result.getData().stream()
+                    .collect(Collectors.toMap(APIUserFile::getId, Function.identity(), (first, second) -> first));
+            boolean finished = false;
+            for (Pending waiting : batch) {
+                APIUserFile file = files.get(waiting.file.getId());
+                if (file != null) {
+                    waiting.file.clone(file);
+                    finished |= complete(waiting);
+                }
+            }
+            return finished;
+        });
+    }
+
+    private static boolean complete(Pending waiting) {
+        String virusScanStatus = waiting.file.getVirusScanStatus();
+        if (APIUserFileProperty.VirusScanStatus.INFECTED.value().equals(virusScanStatus)) {
+            return waiting.future.completeExceptionally(new APIException(400, "File rejected by virus scan"));
+        } else if (APIUserFile.VIRUS_SCAN_ACCEPTED_VALUES.contains(virusScanStatus)) {
+            return waiting.future.complete(waiting.file);
+        }
+        return false;
+    }
+
+    private record FilesKey(APIClient client, String listURI) {
+    }
+
+    private record Pending(APIUserFile file, CompletableFuture<APIUserFile> future, long deadline,
+            AtomicInteger callers) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.testdroid.api.retry;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Retries I/O errors and throttling or gateway errors with exponentially growing, jittered delay.
+ * <code>Retry-After</code> requested by server is honored as long as it does not exceed <code>maxDelay</code>.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    public static final Set<Integer> DEFAULT_RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+
+    private int maxAttempts = 3;
+
+    private Duration initialDelay = Duration.ofMillis(200);
+
+    private Duration maxDelay = Duration.ofSeconds(10);
+
+    private double multiplier = 2.0;
+
+    private double jitter = 0.5;
+
+    private Set<Integer> retryableStatuses = DEFAULT_RETRYABLE_STATUSES;
+
+    private Predicate<String> retryablePost = uri -> false;
+
+    /**
+     * @param maxAttempts maximum number of attempts, including the first one
+     */
+    public ExponentialBackoffRetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public ExponentialBackoffRetryPolicy setInitialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+        return this;
+    }
+
+    public ExponentialBackoffRetryPolicy setMaxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    public ExponentialBackoffRetryPolicy setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * @param jitter fraction of the delay which is randomized, <i>0</i> disables jitter
+     */
+    public ExponentialBackoffRetryPolicy setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Jitter must be between 0 and 1");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    public ExponentialBackoffRetryPolicy setRetryableStatuses(Set<Integer> retryableStatuses) {
+        this.retryableStatuses = retryableStatuses;
+        return this;
+    }
+
+    /**
+     * Opts in POST calls which are safe to repeat.
+     *
+     * @param retryablePost predicate on context URI of the resource
+     */
+    public ExponentialBackoffRetryPolicy setRetryablePost(Predicate<String> retryablePost) {
+        this.retryablePost = retryablePost;
+        return this;
+    }
+
+    @Override
+    public boolean isRetryable(String method, String uri) {
+        return RetryPolicy.super.isRetryable(method, uri) || ("POST".equals(method) && retryablePost.test(uri));
+    }
+
+    @Override
+    public Duration getRetryDelay(int attempt, Integer status, Duration retryAfter) {
+        if (attempt >= maxAttempts || (status != null && !retryableStatuses.contains(status))) {
+            return null;
+        }
+        if (retryAfter != null) {
+            return retryAfter.compareTo(maxDelay) <= 0 ? retryAfter : null;
+        }
+        double delay = Math.min(initialDelay.toMillis() * Math.pow(multiplier, attempt - 1.0), maxDelay.toMillis());
+        return Duration.ofMillis((long) (delay - delay * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
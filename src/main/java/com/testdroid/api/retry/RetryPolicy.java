@@ -0,0 +1,29 @@
+package com.testdroid.api.retry;
+
+import java.time.Duration;
+
+/**
+ * Decides if and when failed API call is repeated. By default only idempotent GET and DELETE calls are retried.
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+    RetryPolicy NEVER = (attempt, status, retryAfter) -> null;
+
+    /**
+     * @param method HTTP method of the call
+     * @param uri    context URI of the resource (without <code>/api/v2</code> prefix)
+     * @return <code>true</code> if call may be repeated safely
+     */
+    default boolean isRetryable(String method, String uri) {
+        return "GET".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * @param attempt    number of attempts made so far, starting with 1
+     * @param status     HTTP status of the failed attempt, <code>null</code> if it failed with I/O error
+     * @param retryAfter delay requested by server with <code>Retry-After</code> header, <code>null</code> if none
+     * @return delay before next attempt, <code>null</code> if call should not be retried
+     */
+    Duration getRetryDelay(int attempt, Integer status, Duration retryAfter);
+}
@@ -0,0 +1,46 @@
+package com.testdroid.api.retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget counters of an API client.
+ */
+public class RetryStatistics {
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private final AtomicLong backoffMillis = new AtomicLong();
+
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public void recordRetry(Duration delay) {
+        retries.incrementAndGet();
+        backoffMillis.addAndGet(delay.toMillis());
+    }
+
+    public void recordExhausted() {
+        exhausted.incrementAndGet();
+    }
+
+    /**
+     * Returns number of repeated attempts.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Returns total time spent waiting before repeated attempts.
+     */
+    public Duration getBackoffTime() {
+        return Duration.ofMillis(backoffMillis.get());
+    }
+
+    /**
+     * Returns number of calls which failed after being retried at least once.
+     */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+}
@@ -0,0 +1,248 @@
+package com.testdroid.api.throttle;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * Token bucket rate limit and in-flight cap applied to API calls of given HTTP method and URI path.
+ * Path matches when URI contains it as whole segments, e.g. <code>/runs</code> matches
+ * <code>/users/1/projects/2/runs/3</code>, but not <code>/runs-config</code>. State is guarded by a lock rather than
+ * a monitor, so virtual threads making calls are not pinned to their carriers.
+ */
+public class RequestLimit {
+
+    private final String method;
+
+    private final String uriPath;
+
+    private double permitsPerSecond;
+
+    private double burst;
+
+    private int maxInFlight;
+
+    private double tokens;
+
+    private long refilledAt = System.nanoTime();
+
+    private int inFlight;
+
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param method  HTTP method, <code>null</code> matches any method
+     * @param uriPath URI path, <code>null</code> matches any URI
+     */
+    public RequestLimit(String method, String uriPath) {
+        this.method = method;
+        this.uriPath = uriPath;
+    }
+
+    public static RequestLimit forAll() {
+        return new RequestLimit(null, null);
+    }
+
+    public static RequestLimit forMethod(String method) {
+        return new RequestLimit(method, null);
+    }
+
+    public static RequestLimit forUri(String uriPath) {
+        return new RequestLimit(null, uriPath);
+    }
+
+    /**
+     * @param permitsPerSecond sustained rate of calls, <i>0</i> means no rate limit
+     * @param burst            maximum number of calls allowed at once after idle period
+     */
+    public RequestLimit setRate(double permitsPerSecond, int burst) {
+        lock.lock();
+        try {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.tokens = this.burst;
+            this.refilledAt = System.nanoTime();
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param maxInFlight maximum number of concurrent calls, <i>0</i> means no limit
+     */
+    public RequestLimit setMaxInFlight(int maxInFlight) {
+        lock.lock();
+        try {
+            this.maxInFlight = maxInFlight;
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUriPath() {
+        return uriPath;
+    }
+
+    public boolean matches(String requestMethod, String uri) {
+        return (method == null || method.equalsIgnoreCase(requestMethod)) && matchesUri(uri);
+    }
+
+    private boolean matchesUri(String uri) {
+        if (isEmpty(uriPath)) {
+            return true;
+        }
+        int index = uri.indexOf(uriPath);
+        while (index >= 0) {
+            int end = index + uriPath.length();
+            boolean segmentStart = index == 0 || uriPath.startsWith("/") || uri.charAt(index - 1) == '/';
+            boolean segmentEnd = end == uri.length() || uri.charAt(end) == '/' || uri.charAt(end) == '?';
+            if (segmentStart && segmentEnd) {
+                return true;
+            }
+            index = uri.indexOf(uriPath, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Takes a token if available.
+     */
+    boolean tryTakeToken() {
+        lock.lock();
+        try {
+            if (permitsPerSecond <= 0) {
+                return true;
+            }
+            refill();
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserves a token, possibly one which becomes available in future.
+     *
+     * @return nanoseconds to wait before the reserved token may be used
+     */
+    long reserveToken() {
+        lock.lock();
+        try {
+            if (permitsPerSecond <= 0) {
+                return 0;
+            }
+            refill();
+            tokens--;
+            return tokens >= 0 ? 0 : (long) (-tokens / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a token reserved for a call which was not executed.
+     */
+    void returnToken() {
+        lock.lock();
+        try {
+            if (permitsPerSecond > 0) {
+                tokens = Math.min(burst, tokens + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean tryEnter() {
+        lock.lock();
+        try {
+            if (maxInFlight > 0 && inFlight >= maxInFlight) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns future completed when the caller is allowed to start the call.
+     */
+    CompletableFuture<Void> enter() {
+        lock.lock();
+        try {
+            if (tryEnter()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiting.addLast(waiter);
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void exit() {
+        CompletableFuture<Void> next;
+        lock.lock();
+        try {
+            next = waiting.pollFirst();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // in-flight slot is handed over to the first waiting caller
+        next.complete(null);
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            if (permitsPerSecond > 0) {
+                refill();
+            }
+            return new State(method, uriPath, permitsPerSecond > 0 ? tokens : Double.POSITIVE_INFINITY, inFlight,
+                    maxInFlight, waiting.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+
+    /**
+     * Snapshot of the limit state.
+     *
+     * @param availableTokens calls which may start now without waiting, negative if calls are already queued
+     * @param inFlight        calls currently executed
+     * @param maxInFlight     maximum number of concurrent calls, <i>0</i> means no limit
+     * @param queued          calls waiting for in-flight slot
+     */
+    public record State(String method, String uriPath, double availableTokens, int inFlight, int maxInFlight,
+                        int queued) {
+    }
+}
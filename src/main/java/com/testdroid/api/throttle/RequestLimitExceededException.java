@@ -0,0 +1,13 @@
+package com.testdroid.api.throttle;
+
+import com.testdroid.api.APIException;
+
+/**
+ * Thrown when the client side request limiter rejects a call instead of queueing it.
+ */
+public class RequestLimitExceededException extends APIException {
+
+    public RequestLimitExceededException(String message) {
+        super(message);
+    }
+}
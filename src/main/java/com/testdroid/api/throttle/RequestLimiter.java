@@ -0,0 +1,167 @@
+package com.testdroid.api.throttle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side governor of API calls. Every call has to pass all matching {@link RequestLimit}s before it is
+ * executed. Calls over the limit are queued, or rejected with {@link RequestLimitExceededException} when
+ * fail fast mode is on or the rate limit wait would exceed <code>maxWait</code>.
+ */
+public class RequestLimiter {
+
+    private final List<RequestLimit> limits = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile boolean failFast;
+
+    private volatile Duration maxWait = Duration.ofMinutes(1);
+
+    public RequestLimiter addLimit(RequestLimit limit) {
+        limits.add(limit);
+        return this;
+    }
+
+    public RequestLimiter setFailFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * @param maxWait maximum time a call may wait for rate limit token before it is rejected
+     */
+    public RequestLimiter setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    /**
+     * Returns state of all limits, e.g. to size worker pools against them.
+     */
+    public List<RequestLimit.State> getStates() {
+        List<RequestLimit.State> states = new ArrayList<>();
+        limits.forEach(limit -> states.add(limit.getState()));
+        return states;
+    }
+
+    /**
+     * Returns number of calls rejected by this limiter.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Waits until the call is allowed to start. Returned permit has to be released when the call finishes.
+     *
+     * @throws RequestLimitExceededException if call is rejected
+     * @throws InterruptedException          if interrupted while waiting
+     */
+    public Permit acquire(String method, String uri) throws RequestLimitExceededException, InterruptedException {
+        CompletableFuture<Permit> permit = acquireAsync(method, uri);
+        try {
+            return permit.get();
+        } catch (InterruptedException e) {
+            permit.thenAccept(Permit::release);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RequestLimitExceededException limitExceeded) {
+                throw limitExceeded;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns future of permit, completed when the call is allowed to start. No thread is blocked while waiting.
+     * Future completes exceptionally with {@link RequestLimitExceededException} if call is rejected.
+     */
+    public CompletableFuture<Permit> acquireAsync(String method, String uri) {
+        List<RequestLimit> matching = new ArrayList<>();
+        for (RequestLimit limit : limits) {
+            if (limit.matches(method, uri)) {
+                matching.add(limit);
+            }
+        }
+        if (matching.isEmpty()) {
+            return CompletableFuture.completedFuture(Permit.NONE);
+        }
+        long waitNanos = 0;
+        for (int i = 0; i < matching.size(); i++) {
+            RequestLimit limit = matching.get(i);
+            if (failFast) {
+                if (!limit.tryTakeToken()) {
+                    matching.subList(0, i).forEach(RequestLimit::returnToken);
+                    return reject(method, uri, "rate");
+                }
+            } else {
+                waitNanos = Math.max(waitNanos, limit.reserveToken());
+            }
+        }
+        if (waitNanos > maxWait.toNanos()) {
+            matching.forEach(RequestLimit::returnToken);
+            return reject(method, uri, "rate");
+        }
+        CompletableFuture<Void> tokensReady = waitNanos == 0 ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+        return tokensReady.thenCompose(ready -> enter(method, uri, matching, 0, new ArrayList<>()));
+    }
+
+    private CompletableFuture<Permit> enter(
+            String method, String uri, List<RequestLimit> matching, int index, List<RequestLimit> entered) {
+        if (index == matching.size()) {
+            return CompletableFuture.completedFuture(new Permit(entered));
+        }
+        RequestLimit limit = matching.get(index);
+        if (failFast) {
+            if (!limit.tryEnter()) {
+                entered.forEach(RequestLimit::exit);
+                matching.forEach(RequestLimit::returnToken);
+                return reject(method, uri, "in-flight");
+            }
+            entered.add(limit);
+            return enter(method, uri, matching, index + 1, entered);
+        }
+        return limit.enter().thenCompose(granted -> {
+            entered.add(limit);
+            return enter(method, uri, matching, index + 1, entered);
+        });
+    }
+
+    private CompletableFuture<Permit> reject(String method, String uri, String limitType) {
+        rejected.incrementAndGet();
+        return CompletableFuture.failedFuture(new RequestLimitExceededException(
+                String.format("Client %s limit exceeded for %s %s", limitType, method, uri)));
+    }
+
+    /**
+     * Allows a single call to run, has to be released when the call finishes.
+     */
+    public static class Permit {
+
+        public static final Permit NONE = new Permit(List.of());
+
+        private final List<RequestLimit> entered;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(List<RequestLimit> entered) {
+            this.entered = entered;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                entered.forEach(RequestLimit::exit);
+            }
+        }
+    }
+}
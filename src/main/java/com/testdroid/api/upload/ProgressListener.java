@@ -0,0 +1,15 @@
+package com.testdroid.api.upload;
+
+/**
+ * Receives progress of an upload or download. Called on transferring thread after each chunk, for parallel
+ * downloads possibly from many threads.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * @param bytesTransferred number of bytes transferred so far
+     * @param contentLength    total number of bytes or <code>-1</code> if unknown
+     */
+    void onProgress(long bytesTransferred, long contentLength);
+}
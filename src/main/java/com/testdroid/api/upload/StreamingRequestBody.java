@@ -0,0 +1,131 @@
+package com.testdroid.api.upload;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Request body written to the connection in chunks straight from the source, without buffering it on the heap.
+ * Bodies of {@link InputStream} are one-shot and thus never retried, bodies of {@link Path} reopen the file
+ * on each attempt. Upload can be cancelled with {@link #cancel()} from any thread.
+ */
+public class StreamingRequestBody extends RequestBody {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final String fileName;
+
+    private final MediaType contentType;
+
+    private final long contentLength;
+
+    private final InputStream inputStream;
+
+    private final Path path;
+
+    private ProgressListener progressListener;
+
+    private volatile boolean cancelled;
+
+    private StreamingRequestBody(
+            String fileName, MediaType contentType, long contentLength, InputStream inputStream, Path path) {
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.inputStream = inputStream;
+        this.path = path;
+    }
+
+    /**
+     * Creates one-shot body of the stream. Stream is read on http thread and is not closed.
+     *
+     * @param contentType   content type of the file, may be <code>null</code>
+     * @param contentLength number of bytes in the stream or <code>-1</code> if unknown, then body is sent chunked
+     */
+    public static StreamingRequestBody create(
+            InputStream inputStream, String fileName, String contentType, long contentLength) {
+        return new StreamingRequestBody(fileName, parse(contentType), contentLength,
+                Objects.requireNonNull(inputStream), null);
+    }
+
+    /**
+     * @param contentType content type of the file, may be <code>null</code>
+     */
+    public static StreamingRequestBody create(Path path, String contentType) throws IOException {
+        return new StreamingRequestBody(Objects.toString(path.getFileName()), parse(contentType), Files.size(path),
+                null, path);
+    }
+
+    private static MediaType parse(String contentType) {
+        return contentType == null ? null : MediaType.parse(contentType);
+    }
+
+    public StreamingRequestBody setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Stops the upload, the call fails with {@link InterruptedIOException} before the next chunk is written.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return path == null;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (path == null) {
+            write(inputStream, sink);
+        } else {
+            try (InputStream fileStream = Files.newInputStream(path)) {
+                write(fileStream, sink);
+            }
+        }
+    }
+
+    private void write(InputStream source, BufferedSink sink) throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long written = 0;
+        int read;
+        while ((read = source.read(buffer)) != -1) {
+            if (cancelled) {
+                throw new InterruptedIOException("Upload of " + fileName + " cancelled");
+            }
+            sink.write(buffer, 0, read);
+            written += read;
+            if (progressListener != null) {
+                progressListener.onProgress(written, contentLength);
+            }
+        }
+    }
+}
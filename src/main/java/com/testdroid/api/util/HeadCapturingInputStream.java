@@ -0,0 +1,63 @@
+package com.testdroid.api.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Input stream which remembers at most <code>limit</code> first bytes read through it.
+ * Allows to report beginning of the content when streaming parse fails, without buffering whole payload.
+ */
+public class HeadCapturingInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream head;
+
+    private final int limit;
+
+    private boolean truncated;
+
+    public HeadCapturingInputStream(InputStream in, int limit) {
+        super(in);
+        this.limit = limit;
+        this.head = new ByteArrayOutputStream(Math.min(limit, 1024));
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            capture(b, off, read);
+        }
+        return read;
+    }
+
+    /**
+     * Returns captured beginning of the content, with trailing <code>...</code> if content was longer.
+     */
+    public String getHead() {
+        String result = head.toString(UTF_8);
+        return truncated ? result + "..." : result;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        int remaining = limit - head.size();
+        if (remaining > 0) {
+            head.write(b, off, Math.min(remaining, len));
+        }
+        if (len > remaining) {
+            truncated = true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.testdroid.api.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filter of {@link com.testdroid.api.APIList} content which keeps only given fields of the entities in
+ * <code>data</code>, all other properties of the list are kept. Entity <code>id</code> is always kept.
+ * Values of skipped fields are not bound, so nested objects and lists are not allocated at all.
+ */
+public class ProjectionFilter extends TokenFilter {
+
+    private static final String DATA = "data";
+
+    private static final String ID = "id";
+
+    private final TokenFilter elements;
+
+    public ProjectionFilter(Set<String> fields) {
+        Set<String> included = new HashSet<>(fields);
+        included.add(ID);
+        this.elements = new Elements(new Fields(included));
+    }
+
+    /**
+     * Returns parser which skips fields of list entities not included in <code>fields</code>.
+     */
+    public static JsonParser filter(JsonParser parser, Set<String> fields) {
+        return new FilteringParserDelegate(parser, new ProjectionFilter(fields), Inclusion.INCLUDE_ALL_AND_PATH, true);
+    }
+
+    @Override
+    public TokenFilter includeProperty(String name) {
+        return DATA.equals(name) ? elements : INCLUDE_ALL;
+    }
+
+    @Override
+    public boolean includeEmptyObject(boolean contentsFiltered) {
+        return true;
+    }
+
+    @Override
+    public boolean includeEmptyArray(boolean contentsFiltered) {
+        return true;
+    }
+
+    private static class Elements extends TokenFilter {
+
+        private final TokenFilter entity;
+
+        private Elements(TokenFilter entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public TokenFilter includeElement(int index) {
+            return entity;
+        }
+
+        @Override
+        public boolean includeEmptyObject(boolean contentsFiltered) {
+            return true;
+        }
+
+        @Override
+        public boolean includeEmptyArray(boolean contentsFiltered) {
+            return true;
+        }
+    }
+
+    private static class Fields extends TokenFilter {
+
+        private final Set<String> fields;
+
+        private Fields(Set<String> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            return fields.contains(name) ? INCLUDE_ALL : null;
+        }
+
+        @Override
+        public boolean includeEmptyObject(boolean contentsFiltered) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.testdroid.api.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+
+/**
+ * Type reference of an already resolved type, created without an anonymous subclass per type.
+ */
+final class ResolvedTypeReference<T> extends TypeReference<T> {
+
+    private final Type type;
+
+    ResolvedTypeReference(Type type) {
+        this.type = type;
+    }
+
+    static <T> ResolvedTypeReference<T> parameterized(Class<?> rawType, Type argument) {
+        return new ResolvedTypeReference<>(new SingleArgumentType(rawType, argument));
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Parameterized type of a top level class with single type argument, equal to the one created by the compiler.
+     */
+    private static final class SingleArgumentType implements ParameterizedType {
+
+        private final Class<?> rawType;
+
+        private final Type argument;
+
+        private SingleArgumentType(Class<?> rawType, Type argument) {
+            this.rawType = rawType;
+            this.argument = argument;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return new Type[]{argument};
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ParameterizedType other && other.getOwnerType() == null
+                    && rawType.equals(other.getRawType())
+                    && Arrays.equals(getActualTypeArguments(), other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            // same as hash code of types created by the compiler, owner type is null
+            return Arrays.hashCode(getActualTypeArguments()) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return rawType.getName() + '<' + argument.getTypeName() + '>';
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.testdroid.api.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.testdroid.api.APIEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ObjectReader} and {@link ObjectWriter} instances used by the client, created once per type
+ * with root (de)serializers already resolved. Readers are created on first use, applications which want to avoid
+ * that cost on their first calls may create readers of all types known to {@link TypeReferenceFactory} up front
+ * with {@link #warmUp()} or {@link #warmUpInBackground()}.
+ * <p>
+ * Readers and writers are created by {@link APIEntity#OBJECT_MAPPER}, or by
+ * {@link APIEntity#createHighThroughputMapper()} when system property
+ * <code>{@value #HIGH_THROUGHPUT_PROPERTY}</code> is <code>true</code>. They keep configuration of the mapper from
+ * the time they were created, call {@link #clear()} after reconfiguring it.
+ */
+public class SerializationRegistry {
+
+    public static final String HIGH_THROUGHPUT_PROPERTY = "testdroid.api.serialization.highThroughput";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializationRegistry.class);
+
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private static volatile ObjectMapper objectMapper = Boolean.getBoolean(HIGH_THROUGHPUT_PROPERTY) ?
+            APIEntity.createHighThroughputMapper() : APIEntity.OBJECT_MAPPER;
+
+    private static volatile boolean warmUpStarted;
+
+    private SerializationRegistry() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Replaces mapper used to create readers and writers and drops already created ones. Meant to be called once,
+     * before the client is used, e.g. with {@link APIEntity#createHighThroughputMapper()}.
+     */
+    public static void setObjectMapper(ObjectMapper objectMapper) {
+        SerializationRegistry.objectMapper = Objects.requireNonNull(objectMapper);
+        clear();
+    }
+
+    public static ObjectReader getReader(TypeReference<?> type) {
+        return READERS.computeIfAbsent(type.getType(), key -> objectMapper.readerFor(type));
+    }
+
+    public static ObjectWriter getWriter(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, key -> objectMapper.writerFor(key));
+    }
+
+    /**
+     * Creates readers of all types known to {@link TypeReferenceFactory} on the calling thread.
+     */
+    public static void warmUp() {
+        for (TypeReference<?> type : TypeReferenceFactory.getTypeRefs()) {
+            try {
+                getReader(type);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to create reader of {}", type.getType().getTypeName(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts {@link #warmUp()} on a daemon thread, once per JVM.
+     */
+    public static synchronized void warmUpInBackground() {
+        if (warmUpStarted) {
+            return;
+        }
+        warmUpStarted = true;
+        Thread thread = new Thread(SerializationRegistry::warmUp, "testdroid-api-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static boolean isWarmUpStarted() {
+        return warmUpStarted;
+    }
+
+    public static void clear() {
+        READERS.clear();
+        WRITERS.clear();
+    }
+}
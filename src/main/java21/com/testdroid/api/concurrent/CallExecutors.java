@@ -0,0 +1,38 @@
+package com.testdroid.api.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors of blocking client calls, one virtual thread per call, so thousands of waiting calls do not need as
+ * many platform threads. Java 21 variant of the class in the multi-release jar.
+ */
+public final class CallExecutors {
+
+    static final String THREAD_NAME_PREFIX = "testdroid-api-call-";
+
+    private CallExecutors() {
+    }
+
+    /**
+     * Returns new executor starting a virtual thread for every task. It should be shut down by the caller.
+     */
+    public static ExecutorService newPerCallExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory());
+    }
+
+    /**
+     * Returns new executor for at most <code>maxThreads</code> concurrent calls. Virtual threads are cheap, so this
+     * variant starts one for every task and leaves the bound to the caller. It should be shut down by the caller.
+     */
+    public static ExecutorService newBoundedExecutor(int maxThreads) {
+        return newPerCallExecutor();
+    }
+
+    /**
+     * Returns <code>true</code> if calls run on virtual threads.
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.testdroid.api.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates <code>com.testdroid.api.util.EntityTypes</code> - list of all public, non-generic
+ * <code>APIEntity</code> subclasses of the compiled sources - so the type registry does not need to be maintained
+ * by hand nor built with classpath scanning at runtime. It is run only when compiling this project and is not
+ * included in the jar.
+ */
+@SupportedAnnotationTypes("*")
+public class EntityTypesProcessor extends AbstractProcessor {
+
+    static final String ENTITY = "com.testdroid.api.APIEntity";
+
+    static final String PACKAGE = "com.testdroid.api.util";
+
+    static final String NAME = "EntityTypes";
+
+    private static final Set<String> EXCLUDED = Set.of("com.testdroid.api.APIList", "com.testdroid.api.APISimpleList");
+
+    private final Set<String> types = new TreeSet<>();
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement entity = processingEnv.getElementUtils().getTypeElement(ENTITY);
+        if (generated || entity == null) {
+            return false;
+        }
+        collect(ElementFilter.typesIn(roundEnv.getRootElements()), entity);
+        if (!types.isEmpty()) {
+            generate();
+            generated = true;
+        }
+        return false;
+    }
+
+    private void collect(Collection<TypeElement> elements, TypeElement entity) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        for (TypeElement type : elements) {
+            if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            boolean innerClass = type.getNestingKind() == NestingKind.MEMBER
+                    && !type.getModifiers().contains(Modifier.STATIC);
+            String name = type.getQualifiedName().toString();
+            if (type.getKind().isClass() && !innerClass && type.getTypeParameters().isEmpty()
+                    && !type.equals(entity) && !EXCLUDED.contains(name)
+                    && typeUtils.isSubtype(typeUtils.erasure(type.asType()), typeUtils.erasure(entity.asType()))) {
+                types.add(name);
+            }
+            collect(ElementFilter.typesIn(type.getEnclosedElements()), entity);
+        }
+    }
+
+    private void generate() {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(PACKAGE + "." + NAME).openWriter()) {
+            writer.write("package " + PACKAGE + ";\n\n");
+            writer.write("import com.testdroid.api.APIEntity;\n\n");
+            writer.write("import javax.annotation.processing.Generated;\n");
+            writer.write("import java.util.List;\n\n");
+            writer.write("@Generated(\"" + EntityTypesProcessor.class.getName() + "\")\n");
+            writer.write("final class " + NAME + " {\n\n");
+            writer.write("    static final List<Class<? extends APIEntity>> ALL = List.of(\n");
+            writer.write(String.join(",\n", types.stream().map(type -> "            " + type + ".class").toList()));
+            writer.write(");\n\n");
+            writer.write("    private " + NAME + "() {\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate " + NAME + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.testdroid.api;
+
+import com.testdroid.api.model.APIUser;
+import com.testdroid.api.retry.ExponentialBackoffRetryPolicy;
+import com.testdroid.api.upload.StreamingRequestBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdroid.api.AsyncAPIClientTest.json;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class APIClientRetryTest {
+
+    private static final String USER = "{\"id\":1,\"email\":\"user@example.com\"}";
+
+    private static final String UNAVAILABLE = "{\"status\":503,\"message\":\"Unavailable\"}";
+
+    private MockWebServer server;
+
+    private APIKeyClient client;
+
+    private ExponentialBackoffRetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new APIKeyClient(server.url("/").toString(), "key");
+        retryPolicy = new ExponentialBackoffRetryPolicy().setMaxAttempts(3).setInitialDelay(Duration.ofMillis(1))
+                .setJitter(0);
+        client.setRetryPolicy(retryPolicy);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void retriesServiceUnavailable() throws APIException {
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(json(200, USER));
+        assertThat(client.me().getEmail()).isEqualTo("user@example.com");
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(client.getRetryStatistics().getRetries()).isEqualTo(1);
+    }
+
+    @Test
+    void honorsRetryAfter() throws APIException {
+        server.enqueue(json(503, UNAVAILABLE).setHeader("Retry-After", "1"));
+        server.enqueue(json(200, USER));
+        long start = System.nanoTime();
+        client.me();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(client.getRetryStatistics().getBackoffTime()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void retriesPostOnlyIfOptedIn() throws APIException {
+        server.enqueue(json(503, UNAVAILABLE));
+        APIException exception = assertThrows(APIException.class,
+                () -> client.post("/me/projects", null, APIUser.class));
+        assertThat(exception.getStatus()).isEqualTo(503);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+
+        retryPolicy.setRetryablePost("/me/projects"::equals);
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(json(200, USER));
+        assertThat(client.post("/me/projects", null, APIUser.class).getEmail()).isEqualTo("user@example.com");
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void neverReplaysOneShotBody(@TempDir Path directory) throws APIException, IOException {
+        retryPolicy.setRetryablePost(uri -> true);
+        server.enqueue(json(503, UNAVAILABLE));
+        StreamingRequestBody stream = StreamingRequestBody.create(
+                new ByteArrayInputStream("content".getBytes(UTF_8)), "app.apk", "application/octet-stream", 7);
+        APIException exception = assertThrows(APIException.class,
+                () -> client.postFile("/me/files", stream, Map.of(), APIUser.class));
+        assertThat(exception.getStatus()).isEqualTo(503);
+        assertThat(server.getRequestCount()).isEqualTo(1);
+
+        Path file = Files.writeString(directory.resolve("app.apk"), "content");
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(json(201, USER));
+        client.postFile("/me/files", StreamingRequestBody.create(file, "application/octet-stream"), Map.of(),
+                APIUser.class);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesAsyncCalls() throws Exception {
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(json(200, USER));
+        assertThat(client.getAsync("/me", APIUser.class).get(5, TimeUnit.SECONDS).getEmail())
+                .isEqualTo("user@example.com");
+        assertThat(server.getRequestCount()).isEqualTo(2);
+
+        server.enqueue(json(503, UNAVAILABLE));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.postAsync("/me/projects", null, APIUser.class).get(5, TimeUnit.SECONDS));
+        assertThat(((APIException) exception.getCause()).getStatus()).isEqualTo(503);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+        assertThat(client.getRetryStatistics().getRetries()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelsRetriedAsyncCall() throws Exception {
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(json(503, UNAVAILABLE));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        CompletableFuture<APIUser> future = client.getAsync("/me", APIUser.class);
+        for (int i = 0; i < 3; i++) {
+            assertThat(server.takeRequest(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        // a single cancellation hook serves all attempts
+        assertThat(future.getNumberOfDependents()).isEqualTo(1);
+        assertThat(future.cancel(true)).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> client.getClient().dispatcher().runningCallsCount() == 0);
+    }
+}
+
@@ -0,0 +1,121 @@
+package com.testdroid.api;
+
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.model.APIProject;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.testdroid.api.AsyncAPIClientTest.json;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class APIListResourceTest {
+
+    private static final String URI = "/me/projects";
+
+    private MockWebServer server;
+
+    private APIKeyClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new APIKeyClient(server.url("/").toString(), "key");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void streamsPagesUntilTotal() throws InterruptedException {
+        server.enqueue(json(200, page(0, 2, 3, 1, 2)));
+        server.enqueue(json(200, page(2, 2, 3, 3)));
+        Context<APIProject> context = new Context<>(APIProject.class).setLimit(2);
+        APIListResource<APIProject> resource = new APIListResource<>(client, URI, context);
+        assertThat(resource.stream().map(APIProject::getId)).containsExactly(1L, 2L, 3L);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(takeQuery()).containsExactly("0", "2");
+        assertThat(takeQuery()).containsExactly("2", "2");
+        assertThat(context.getOffset()).isZero();
+        assertThat(context.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void stopsOnEmptyPage() throws InterruptedException {
+        server.enqueue(json(200, page(0, 2, 10, 1, 2)));
+        server.enqueue(json(200, page(2, 2, 10)));
+        Iterator<APIProject> iterator = new APIListResource<>(client, URI, APIProject.class).iterator(2);
+        assertThat(iterator).toIterable().extracting(APIProject::getId).containsExactly(1L, 2L);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(takeQuery()).containsExactly("0", "2");
+        assertThat(takeQuery()).containsExactly("2", "2");
+    }
+
+    @Test
+    void takesPageSizeFromContextLimit() throws InterruptedException {
+        server.enqueue(json(200, page(10, 5, 12, 11, 12)));
+        Context<APIProject> context = new Context<>(APIProject.class).setOffset(10).setLimit(5);
+        assertThat(new APIListResource<>(client, URI, context).stream().count()).isEqualTo(2);
+        assertThat(takeQuery()).containsExactly("10", "5");
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void wrapsAPIException() {
+        server.enqueue(json(500, "{\"status\":500,\"message\":\"Server error\"}"));
+        Iterator<APIProject> iterator = new APIListResource<>(client, URI, APIProject.class).iterator();
+        APIRuntimeException exception = assertThrows(APIRuntimeException.class, iterator::hasNext);
+        assertThat(exception.getCause().getStatus()).isEqualTo(500);
+    }
+
+    @Test
+    void pagesFetchedListWithoutChangingContext() throws APIException, InterruptedException {
+        server.enqueue(json(200, page(2, 2, 6, 3, 4)));
+        server.enqueue(json(200, page(4, 2, 6, 5, 6)));
+        server.enqueue(json(200, page(0, 2, 6, 1, 2)));
+        Context<APIProject> context = new Context<>(APIProject.class).setOffset(2).setLimit(2);
+        APIList<APIProject> list = new APIListResource<>(client, URI, context).getEntity();
+        assertThat(list.getNextItems().getData()).extracting(APIProject::getId).containsExactly(5L, 6L);
+        assertThat(list.getPreviousItems().getData()).extracting(APIProject::getId).containsExactly(1L, 2L);
+        assertThat(takeQuery()).containsExactly("2", "2");
+        assertThat(takeQuery()).containsExactly("4", "2");
+        assertThat(takeQuery()).containsExactly("0", "2");
+        assertThat(context.getOffset()).isEqualTo(2);
+        assertThat(list.getContext().getOffset()).isEqualTo(2);
+    }
+
+    /**
+     * Returns offset and limit of the next recorded request.
+     */
+    private String[] takeQuery() throws InterruptedException {
+        RecordedRequest request = Objects.requireNonNull(server.takeRequest(5, TimeUnit.SECONDS));
+        HttpUrl url = Objects.requireNonNull(request.getRequestUrl());
+        assertThat(url.encodedPath()).isEqualTo("/api/v2" + URI);
+        return new String[]{url.queryParameter(Context.OFFSET_REQUEST_PARAM),
+                url.queryParameter(Context.LIMIT_REQUEST_PARAM)};
+    }
+
+    static String page(int offset, int limit, int total, long... ids) {
+        String data = Arrays.stream(ids).mapToObj(id -> String.format("{\"id\":%d,\"name\":\"Project %d\"}", id, id))
+                .collect(Collectors.joining(","));
+        return String.format("{\"offset\":%d,\"limit\":%d,\"total\":%d,\"data\":[%s]}", offset, limit, total, data);
+    }
+}
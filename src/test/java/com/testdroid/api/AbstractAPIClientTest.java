@@ -1,19 +1,31 @@
 package com.testdroid.api;
 
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.model.APIProject;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
 import okio.BufferedSink;
 import okio.Okio;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static com.testdroid.api.model.APIDevice.OsType.ANDROID;
 import static com.testdroid.api.model.APIDevice.OsType.DESKTOP;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
 import static org.assertj.core.api.Assertions.assertThat;
 
+@Tag(UNIT)
 class AbstractAPIClientTest {
 
     @Test
@@ -37,4 +49,97 @@ class AbstractAPIClientTest {
             assertThat(os).hasToString(expected);
         }
     }
+
+    @Test
+    void fallsBackToHttp11BehindProxy() {
+        APIKeyClient client = new APIKeyClient("http://localhost", "key");
+        assertThat(client.getProtocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        client.setProtocolMode(ProtocolMode.HTTP_2_PRIOR_KNOWLEDGE);
+        assertThat(client.getProtocols()).containsExactly(Protocol.H2_PRIOR_KNOWLEDGE);
+        client.setProxy(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved("proxy", 8080)));
+        assertThat(client.getProtocols()).containsExactly(Protocol.HTTP_1_1);
+        client.setProtocolMode(ProtocolMode.HTTP_1_1);
+        assertThat(client.getProtocols()).containsExactly(Protocol.HTTP_1_1);
+    }
+
+    @Test
+    void usesH2PriorKnowledgeWithoutProxy() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+            server.enqueue(new MockResponse().setBody("{}"));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            client.setProtocolMode(ProtocolMode.HTTP_2_PRIOR_KNOWLEDGE);
+            assertThat(client.getClient().protocols()).containsExactly(Protocol.H2_PRIOR_KNOWLEDGE);
+            try (Response response = client.getHttpResponse("/me", null)) {
+                assertThat(response.protocol()).isEqualTo(Protocol.H2_PRIOR_KNOWLEDGE);
+            }
+        }
+    }
+
+    @Test
+    void reusesHttpClientAndConnectionAcrossCalls() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("{\"id\":1}"));
+            server.enqueue(new MockResponse().setBody("{\"id\":1}"));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            OkHttpClient httpClient = client.getClient();
+            client.me();
+            client.me();
+            assertThat(client.getClient()).isSameAs(httpClient);
+            assertThat(server.takeRequest().getSequenceNumber()).isZero();
+            assertThat(server.takeRequest().getSequenceNumber()).isOne();
+            assertThat(httpClient.connectionPool().connectionCount()).isOne();
+        }
+    }
+
+    @Test
+    void rebuildsHttpClientOnSettingsChangeKeepingPool() {
+        APIKeyClient client = new APIKeyClient("http://localhost", "key");
+        OkHttpClient httpClient = client.getClient();
+        client.setConnectTimeout(httpClient.connectTimeoutMillis());
+        assertThat(client.getClient()).isSameAs(httpClient);
+        client.setConnectTimeout(1000);
+        OkHttpClient withTimeout = client.getClient();
+        assertThat(withTimeout).isNotSameAs(httpClient);
+        assertThat(withTimeout.connectTimeoutMillis()).isEqualTo(1000);
+        Proxy proxy = new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved("proxy", 8080));
+        client.setProxy(proxy);
+        OkHttpClient withProxy = client.getClient();
+        assertThat(withProxy).isNotSameAs(withTimeout);
+        assertThat(withProxy.proxy()).isEqualTo(proxy);
+        assertThat(withProxy.connectionPool()).isSameAs(httpClient.connectionPool());
+        assertThat(withProxy.dispatcher()).isSameAs(httpClient.dispatcher());
+    }
+
+    @Test
+    void closeShutsDownDispatcherAndEvictsConnections() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody("{\"id\":1}"));
+            server.enqueue(new MockResponse().setBody("{\"id\":1}"));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            client.me();
+            OkHttpClient httpClient = client.getClient();
+            assertThat(httpClient.connectionPool().idleConnectionCount()).isOne();
+            client.close();
+            assertThat(httpClient.connectionPool().connectionCount()).isZero();
+            assertThat(httpClient.dispatcher().executorService().isShutdown()).isTrue();
+            client.me();
+            assertThat(client.getClient()).isNotSameAs(httpClient);
+            assertThat(client.getClient().dispatcher().executorService().isShutdown()).isFalse();
+        }
+    }
+
+    @Test
+    void buildsUrlsSameAsConcatenation() {
+        APIKeyClient client = new APIKeyClient("https://cloud.bitbar.com/", "key");
+        Context<APIProject> context = new Context<>(APIProject.class).setSearch("x y");
+        for (String uri : List.of("/me/projects", "/me/projects/", "/me//projects", "/me/../devices",
+                "/me/files/a b%2Fc", "/me/projects?x=1", "/me\\projects", "", "/")) {
+            assertThat(client.buildHttpUrl(uri, context).toString())
+                    .isEqualTo(client.buildUrl(client.apiURL + uri, context));
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package com.testdroid.api;
+
+import com.testdroid.api.model.APIUser;
+import okhttp3.ConnectionPool;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class AsyncAPIClientTest {
+
+    private MockWebServer server;
+
+    private APIKeyClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new APIKeyClient(server.url("/").toString(), "key");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void getsEntity() throws Exception {
+        server.enqueue(json(200, "{\"id\":1,\"email\":\"user@example.com\"}"));
+        APIUser user = client.getAsync("/me", APIUser.class).get(5, TimeUnit.SECONDS);
+        assertThat(user.getEmail()).isEqualTo("user@example.com");
+        assertThat(user.getSelfURI()).isEqualTo("/me");
+        assertThat(server.takeRequest().getPath()).isEqualTo("/api/v2/me");
+    }
+
+    @Test
+    void mapsHttpErrorToAPIException() {
+        server.enqueue(json(404, "{\"status\":404,\"message\":\"No user\"}"));
+        CompletableFuture<APIUser> future = client.getAsync("/users/2", APIUser.class);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause()).isInstanceOf(APIException.class);
+        APIException cause = (APIException) exception.getCause();
+        assertThat(cause.getStatus()).isEqualTo(404);
+        assertThat(cause.getMessage()).isEqualTo("No user");
+    }
+
+    @Test
+    void cancelsHttpCall() throws InterruptedException {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        CompletableFuture<APIUser> future = client.getAsync("/me", APIUser.class);
+        assertThat(server.takeRequest(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(client.getClient().dispatcher().runningCallsCount()).isEqualTo(1);
+        assertThat(future.cancel(true)).isTrue();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> client.getClient().dispatcher().runningCallsCount() == 0);
+        assertThat(future).isCancelled();
+    }
+
+    @Test
+    void closesResponseArrivingAfterCompletion() throws Exception {
+        server.enqueue(json(200, "{}").setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        CompletableFuture<Response> future = client.getHttpResponseAsync("/me", null);
+        assertThat(server.takeRequest(5, TimeUnit.SECONDS)).isNotNull();
+        future.complete(null);
+        ConnectionPool pool = client.getClient().connectionPool();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> client.getClient().dispatcher().runningCallsCount() == 0);
+        // the response was closed, so its connection went back to the pool
+        await().atMost(5, TimeUnit.SECONDS).until(() -> pool.idleConnectionCount() == pool.connectionCount());
+    }
+
+    static MockResponse json(int status, String body) {
+        return new MockResponse().setResponseCode(status).setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+}
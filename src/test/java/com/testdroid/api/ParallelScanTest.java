@@ -0,0 +1,147 @@
+package com.testdroid.api;
+
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.model.APIProject;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.testdroid.api.APIListResourceTest.page;
+import static com.testdroid.api.AsyncAPIClientTest.json;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class ParallelScanTest {
+
+    private static final String URI = "/me/projects";
+
+    private static final int TOTAL = 53;
+
+    private MockWebServer server;
+
+    private APIKeyClient client;
+
+    private volatile int failingOffset = -1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                HttpUrl url = Objects.requireNonNull(request.getRequestUrl());
+                int offset = Integer.parseInt(Objects.requireNonNull(url.queryParameter("offset")));
+                int limit = Integer.parseInt(Objects.requireNonNull(url.queryParameter("limit")));
+                if (offset == failingOffset) {
+                    return json(500, "{\"status\":500,\"message\":\"Server error\"}");
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                long[] ids = LongStream.rangeClosed(offset + 1L, Math.min(offset + limit, TOTAL)).toArray();
+                return json(200, page(offset, limit, TOTAL, ids));
+            }
+        });
+        server.start();
+        client = new APIKeyClient(server.url("/").toString(), "key");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "1, 4", "4, 1", "4, 8", "16, 16"})
+    void scansInOrder(int parallelism, int prefetchDepth) {
+        ParallelScan scan = new ParallelScan().setPageSize(5).setParallelism(parallelism)
+                .setPrefetchDepth(prefetchDepth);
+        try (Stream<APIProject> stream = resource(client).scan(scan)) {
+            assertThat(stream.map(APIProject::getId)).containsExactlyElementsOf(allIds());
+        }
+        assertThat(server.getRequestCount()).isEqualTo(11);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 1", "4, 8"})
+    void scansUnordered(int parallelism, int prefetchDepth) {
+        ParallelScan scan = new ParallelScan().setPageSize(5).setParallelism(parallelism)
+                .setPrefetchDepth(prefetchDepth).setOrdered(false);
+        try (Stream<APIProject> stream = resource(client).scan(scan)) {
+            assertThat(stream.map(APIProject::getId)).containsExactlyInAnyOrderElementsOf(allIds());
+        }
+    }
+
+    @Test
+    void runsBlockingRequestsOnGivenExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (Stream<APIProject> stream = resource(client).scan(new ParallelScan().setPageSize(5).setParallelism(1)
+                .setExecutor(executor))) {
+            assertThat(stream.map(APIProject::getId)).containsExactlyElementsOf(allIds());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void runsBlockingRequestsOnOwnThreadsWithoutAsyncClient() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        APIClient blockingClient = (APIClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{APIClient.class}, (proxy, method, args) -> {
+                    threads.add(Thread.currentThread().getName());
+                    try {
+                        return method.invoke(client, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        ParallelScan scan = new ParallelScan().setPageSize(5).setParallelism(3);
+        try (Stream<APIProject> stream = resource(blockingClient).scan(scan)) {
+            assertThat(stream.map(APIProject::getId)).containsExactlyElementsOf(allIds());
+        }
+        threads.remove(Thread.currentThread().getName());
+        assertThat(threads).isNotEmpty().allMatch(name -> name.startsWith("parallel-scan-"));
+    }
+
+    @Test
+    void failsOnPageError() {
+        failingOffset = 25;
+        ParallelScan scan = new ParallelScan().setPageSize(5).setParallelism(2);
+        try (Stream<APIProject> stream = resource(client).scan(scan)) {
+            APIRuntimeException exception = assertThrows(APIRuntimeException.class, stream::count);
+            assertThat(exception.getCause().getStatus()).isEqualTo(500);
+        }
+    }
+
+    private static APIListResource<APIProject> resource(APIClient client) {
+        return new APIListResource<>(client, URI, new Context<>(APIProject.class));
+    }
+
+    private static List<Long> allIds() {
+        return LongStream.rangeClosed(1, TOTAL).boxed().collect(Collectors.toList());
+    }
+}
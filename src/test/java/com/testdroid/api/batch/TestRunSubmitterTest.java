@@ -0,0 +1,160 @@
+package com.testdroid.api.batch;
+
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.model.APIFileConfig;
+import com.testdroid.api.model.APITestRunConfig;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class TestRunSubmitterTest {
+
+    @TempDir
+    Path directory;
+
+    private final CloudDispatcher dispatcher = new CloudDispatcher();
+
+    private MockWebServer server;
+
+    private TestRunSubmitter submitter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+        submitter = new TestRunSubmitter(client.me()).setVirusScanTimeout(null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void attachesUploadsWithoutChangingConfig() throws Exception {
+        APITestRunConfig config = config(2);
+        Path app = Files.writeString(directory.resolve("app.apk"), "app");
+        List<SubmissionResult> results = submitter.submit(List.of(
+                new TestRunSubmission(config).addUpload(APIFileConfig.Action.INSTALL, app)));
+        assertThat(results).hasSize(1).allMatch(SubmissionResult::isSuccess);
+        assertThat(config.getFiles()).isEmpty();
+        assertThat(dispatcher.runs).singleElement().asString()
+                .contains("\"action\":\"INSTALL\"").contains("\"id\":1");
+    }
+
+    @Test
+    void uploadsIdenticalFilesOnce() throws Exception {
+        Path app = Files.writeString(directory.resolve("app.apk"), "app");
+        Path sameApp = Files.writeString(directory.resolve("same-app.apk"), "app");
+        Path test = Files.writeString(directory.resolve("test.apk"), "test");
+        List<SubmissionResult> results = submitter.setValidate(false).submit(List.of(
+                new TestRunSubmission(config(1)).addUpload(APIFileConfig.Action.INSTALL, app)
+                        .addUpload(APIFileConfig.Action.RUN_TEST, test),
+                new TestRunSubmission(config(2)).addUpload(APIFileConfig.Action.INSTALL, sameApp),
+                new TestRunSubmission(config(3)).addUpload(APIFileConfig.Action.INSTALL, app)));
+        assertThat(results).allMatch(SubmissionResult::isSuccess);
+        assertThat(dispatcher.uploads).hasValue(2);
+        assertThat(dispatcher.runs).hasSize(3);
+    }
+
+    @Test
+    void uploadsFileAgainWhenChanged() throws Exception {
+        Path app = Files.writeString(directory.resolve("app.apk"), "app");
+        Path sameApp = Files.writeString(directory.resolve("same-app.apk"), "app");
+        submitter.setValidate(false).submit(List.of(
+                new TestRunSubmission(config(1)).addUpload(APIFileConfig.Action.INSTALL, app)));
+        Files.writeString(app, "changed app");
+        submitter.submit(List.of(
+                new TestRunSubmission(config(1)).addUpload(APIFileConfig.Action.INSTALL, app),
+                new TestRunSubmission(config(2)).addUpload(APIFileConfig.Action.INSTALL, sameApp)));
+        assertThat(dispatcher.uploads).hasValue(3);
+    }
+
+    @Test
+    void boundsParallelism() throws Exception {
+        dispatcher.runDelay = 50;
+        List<TestRunSubmission> submissions = IntStream.range(0, 8)
+                .mapToObj(projectId -> new TestRunSubmission(config(projectId))).collect(Collectors.toList());
+        List<SubmissionResult> results = submitter.setParallelism(3).submit(submissions);
+        assertThat(results).hasSize(8).allMatch(SubmissionResult::isSuccess);
+        assertThat(results.stream().map(result -> result.submission().getConfig().getProjectId()))
+                .containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(dispatcher.maxRunsInFlight.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void reportsFailedSubmission() throws Exception {
+        List<SubmissionResult> results = submitter.submit(List.of(
+                new TestRunSubmission(config(1)),
+                new TestRunSubmission(config(2)).addUpload(APIFileConfig.Action.INSTALL, directory.resolve("none"))));
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).error()).hasMessageContaining("Failed to read");
+    }
+
+    private static APITestRunConfig config(long projectId) {
+        APITestRunConfig config = new APITestRunConfig();
+        config.setProjectId(projectId);
+        return config;
+    }
+
+    private static class CloudDispatcher extends Dispatcher {
+
+        private final AtomicInteger uploads = new AtomicInteger();
+
+        private final List<String> runs = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger runsInFlight = new AtomicInteger();
+
+        private final AtomicInteger maxRunsInFlight = new AtomicInteger();
+
+        private volatile long runDelay;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getRequestUrl().encodedPath();
+            if (path.endsWith("/me/files")) {
+                return json(String.format("{\"id\":%d}", uploads.incrementAndGet()));
+            }
+            if (path.endsWith("/me/runs/config")) {
+                return json(request.getBody().readUtf8());
+            }
+            if (path.endsWith("/me/runs")) {
+                maxRunsInFlight.accumulateAndGet(runsInFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(runDelay);
+                } finally {
+                    runsInFlight.decrementAndGet();
+                }
+                runs.add(request.getBody().readUtf8());
+                return json(String.format("{\"id\":%d,\"projectId\":1}", runs.size()));
+            }
+            return json("{\"id\":1}");
+        }
+
+        private static MockResponse json(String body) {
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+        }
+    }
+}
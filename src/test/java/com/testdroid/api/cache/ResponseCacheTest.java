@@ -0,0 +1,118 @@
+package com.testdroid.api.cache;
+
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.AbstractAPIClient;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.model.APIDevice;
+import com.testdroid.api.model.APIUser;
+import okhttp3.Credentials;
+import okhttp3.Interceptor;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class ResponseCacheTest {
+
+    private static final byte[] BODY = {1, 2, 3};
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void expiresAfterTtl() {
+        ResponseCache cache = new ResponseCache(10, Duration.ofSeconds(1), clock::get);
+        cache.put("key", BODY);
+        clock.addAndGet(Duration.ofMillis(999).toNanos());
+        assertThat(cache.get("key")).isEqualTo(BODY);
+        clock.addAndGet(Duration.ofMillis(2).toNanos());
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ResponseCache cache = new ResponseCache(2, Duration.ofMinutes(1), clock::get);
+        cache.put("a", BODY);
+        cache.put("b", BODY);
+        cache.get("a");
+        cache.put("c", BODY);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void isCacheable() {
+        ResponseCache cache = new ResponseCache().cacheType(APIDevice.class);
+        assertThat(cache.isCacheable(null, APIDevice.class)).isTrue();
+        assertThat(cache.isCacheable(null, APIUser.class)).isFalse();
+        assertThat(cache.isCacheable(new Context<>(APIUser.class), APIUser.class)).isFalse();
+        assertThat(cache.isCacheable(new Context<>(APIUser.class).setCacheable(true), APIUser.class)).isTrue();
+    }
+
+    @Test
+    void doesNotShareEntriesBetweenApiKeys() throws Exception {
+        try (MockWebServer server = startUserServer()) {
+            ResponseCache cache = new ResponseCache().cacheType(APIUser.class);
+            APIKeyClient first = new APIKeyClient(server.url("/").toString(), "first");
+            APIKeyClient second = new APIKeyClient(server.url("/").toString(), "second");
+            first.setResponseCache(cache);
+            second.setResponseCache(cache);
+            assertThat(first.me().getEmail()).isEqualTo(Credentials.basic("first", ""));
+            assertThat(second.me().getEmail()).isEqualTo(Credentials.basic("second", ""));
+            assertThat(first.me().getEmail()).isEqualTo(Credentials.basic("first", ""));
+            assertThat(server.getRequestCount()).isEqualTo(2);
+            assertThat(cache.getHits()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void isNotUsedByClientWithoutCacheScope() throws Exception {
+        try (MockWebServer server = startUserServer()) {
+            ResponseCache cache = new ResponseCache().cacheType(APIUser.class);
+            AbstractAPIClient client = new AbstractAPIClient() {
+                {
+                    apiURL = server.url(API_URI).toString();
+                }
+
+                @Override
+                protected Interceptor getInterceptor() {
+                    return chain -> chain.proceed(chain.request().newBuilder()
+                            .header("Authorization", "Bearer token").build());
+                }
+            };
+            client.setResponseCache(cache);
+            client.me();
+            client.me();
+            assertThat(server.getRequestCount()).isEqualTo(2);
+            assertThat(cache.size()).isZero();
+        }
+    }
+
+    /**
+     * Starts server returning user whose email is the authorization of the request.
+     */
+    private static MockWebServer startUserServer() throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "application/json")
+                        .setBody(String.format("{\"id\":1,\"email\":\"%s\"}", request.getHeader("Authorization")));
+            }
+        });
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,172 @@
+package com.testdroid.api.compression;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.testdroid.api.compression.CompressionInterceptor.ACCEPT_ENCODING;
+import static com.testdroid.api.compression.CompressionInterceptor.CONTENT_ENCODING;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class CompressionInterceptorTest {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private static final String CONTENT = "{\"data\":[" + "{\"id\":1,\"displayName\":\"device\"},".repeat(100)
+            + "{\"id\":2}]}";
+
+    private final CompressionStatistics statistics = new CompressionStatistics();
+
+    @Test
+    void decodesGzipResponse() throws IOException {
+        Buffer gzipped = gzip(CONTENT);
+        long wireBytes = gzipped.size();
+        StubChain chain = new StubChain(new Request.Builder().url("http://localhost/api/v2/me").build(),
+                request -> response(request, 200).header(CONTENT_ENCODING, "gzip")
+                        .body(ResponseBody.create(gzipped, JSON, wireBytes)).build());
+        try (Response response = new CompressionInterceptor(new Compression(), statistics).intercept(chain)) {
+            assertThat(chain.proceeded.header(ACCEPT_ENCODING)).isEqualTo("gzip");
+            assertThat(response.header(CONTENT_ENCODING)).isNull();
+            assertThat(response.body().string()).isEqualTo(CONTENT);
+        }
+        assertThat(statistics.getResponseWireBytes()).isEqualTo(wireBytes);
+        assertThat(statistics.getResponseBytes()).isEqualTo(CONTENT.length());
+    }
+
+    @Test
+    void passesRangeRequests() throws IOException {
+        StubChain chain = new StubChain(new Request.Builder().url("http://localhost/file").header("Range", "bytes=1-")
+                .build(), request -> response(request, 206).body(ResponseBody.create("abc", null)).build());
+        try (Response response = new CompressionInterceptor(new Compression(), statistics).intercept(chain)) {
+            assertThat(chain.proceeded.header(ACCEPT_ENCODING)).isNull();
+            assertThat(response.body().string()).isEqualTo("abc");
+        }
+    }
+
+    @Test
+    void compressesJsonRequestsIfEnabled() throws IOException {
+        Request request = new Request.Builder().url("http://localhost/api/v2/runs")
+                .post(RequestBody.create(CONTENT, JSON)).build();
+        Compression compression = new Compression().setGzip(false).setGzipRequests(true);
+        StubChain chain = new StubChain(request, r -> response(r, 201).body(ResponseBody.create("{}", JSON)).build());
+        new CompressionInterceptor(compression, statistics).intercept(chain).close();
+        assertThat(chain.proceeded.header(ACCEPT_ENCODING)).isEqualTo("identity");
+        assertThat(chain.proceeded.header(CONTENT_ENCODING)).isEqualTo("gzip");
+        Buffer sent = new Buffer();
+        chain.proceeded.body().writeTo(sent);
+        assertThat(Okio.buffer(new GzipSource(sent)).readUtf8()).isEqualTo(CONTENT);
+        assertThat(statistics.getRequestBytes()).isEqualTo(CONTENT.length());
+        assertThat(statistics.getRequestWireBytes()).isLessThan(CONTENT.length());
+    }
+
+    @Test
+    void doesNotCompressSmallRequests() throws IOException {
+        Request request = new Request.Builder().url("http://localhost/api/v2/runs")
+                .post(RequestBody.create("{}", JSON)).build();
+        StubChain chain = new StubChain(request, r -> response(r, 201).body(ResponseBody.create("{}", JSON)).build());
+        new CompressionInterceptor(new Compression().setGzipRequests(true), statistics).intercept(chain).close();
+        assertThat(chain.proceeded.header(CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    void buildsAcceptEncoding() {
+        assertThat(new Compression().getAcceptEncoding()).isEqualTo("gzip");
+        assertThat(new Compression().setGzip(false).getAcceptEncoding()).isEqualTo("identity");
+    }
+
+    private static Buffer gzip(String content) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.writeUtf8(content);
+        }
+        return buffer;
+    }
+
+    private static Response.Builder response(Request request, int code) {
+        return new Response.Builder().request(request).protocol(Protocol.HTTP_1_1).code(code).message("");
+    }
+
+    private static class StubChain implements Interceptor.Chain {
+
+        private final Request request;
+
+        private final Function<Request, Response> server;
+
+        private Request proceeded;
+
+        StubChain(Request request, Function<Request, Response> server) {
+            this.request = request;
+            this.server = server;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(Request request) {
+            proceeded = request;
+            return server.apply(request);
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+
+        @Override
+        public Call call() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int connectTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int readTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int writeTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.testdroid.api.concurrent;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.model.APITestRun;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class FanOutTest {
+
+    @Test
+    void returnsResultsInOrderWithBoundedParallelism() throws APIException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<String> results = new FanOut().setParallelism(2).map(List.of(5, 1, 3, 2, 4), delay -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(delay * 10L);
+            inFlight.decrementAndGet();
+            return Thread.currentThread().getName().startsWith(CallExecutors.THREAD_NAME_PREFIX) ? "#" + delay : "";
+        });
+        assertThat(results).containsExactly("#5", "#1", "#3", "#2", "#4");
+        assertThat(maxInFlight).hasValueLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cancelsRemainingCallsOnFailure() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger completed = new AtomicInteger();
+        APIException exception = assertThrows(APIException.class, () -> new FanOut().setParallelism(3)
+                .forEach(List.of(1, 2, 3),
+                item -> {
+                    if (item == 1) {
+                        await(started);
+                        throw new APIException(404, "Not found");
+                    }
+                    started.countDown();
+                    sleep(TimeUnit.MINUTES.toMillis(1));
+                    completed.incrementAndGet();
+                    return null;
+                }));
+        assertThat(exception.getStatus()).isEqualTo(404);
+        assertThat(completed).hasValue(0);
+        assertThat(Thread.interrupted()).isFalse();
+    }
+
+    @Test
+    void startsNoMoreThreadsThanParallelism() throws APIException {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> items = IntStream.range(0, 500).boxed().collect(Collectors.toList());
+        List<Integer> results = new FanOut().setParallelism(4).map(items, item -> {
+            threads.add(Thread.currentThread());
+            sleep(1);
+            return item;
+        });
+        assertThat(results).isEqualTo(items);
+        assertThat(threads).hasSizeBetween(1, 4);
+    }
+
+    @Test
+    void stopsSubmittingCallsAfterFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        assertThrows(APIException.class, () -> new FanOut().setParallelism(1).forEach(items, item -> {
+            calls.incrementAndGet();
+            throw new APIException(500, "Failed");
+        }));
+        assertThat(calls).hasValueLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void stopsWaitingForCallsIgnoringInterruption() {
+        AtomicBoolean released = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            long start = System.nanoTime();
+            APIException exception = assertThrows(APIException.class, () -> new FanOut().setParallelism(2)
+                    .setShutdownTimeout(Duration.ofMillis(50)).forEach(List.of(1, 2), item -> {
+                        if (item == 1) {
+                            await(started);
+                            throw new APIException(404, "Not found");
+                        }
+                        started.countDown();
+                        while (!released.get()) {
+                            Thread.onSpinWait();
+                        }
+                        return null;
+                    }));
+            assertThat(exception.getStatus()).isEqualTo(404);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        } finally {
+            released.set(true);
+        }
+    }
+
+    @Test
+    void boundsDefaultParallelismOfPlatformThreads() {
+        assertThat(new FanOut().getParallelism()).isEqualTo(CallExecutors.isVirtual() ? Integer.MAX_VALUE
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    void keysDeviceSessionsByRunId() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String path = request.getRequestUrl().encodedPath();
+                    if (path.endsWith("/device-sessions")) {
+                        long runId = Long.parseLong(path.split("/")[path.split("/").length - 2]);
+                        return json(String.format("{\"offset\":0,\"limit\":10,\"total\":1,\"data\":"
+                                + "[{\"id\":%d}]}", runId * 10));
+                    }
+                    return json(String.format("{\"id\":%s}", path.substring(path.lastIndexOf('/') + 1)));
+                }
+            });
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            APITestRun first = client.get("/users/1/projects/2/runs/1", APITestRun.class);
+            APITestRun second = client.get("/users/1/projects/2/runs/2", APITestRun.class);
+            APITestRun firstAgain = client.get("/users/1/projects/2/runs/1", APITestRun.class);
+            Map<Long, List<APIDeviceSession>> sessions = new FanOut().getDeviceSessions(
+                    List.of(first, second, firstAgain));
+            assertThat(sessions).containsOnlyKeys(1L, 2L);
+            assertThat(sessions.get(first.getId())).extracting(APIDeviceSession::getId).containsExactly(10L);
+            assertThat(sessions.get(2L)).extracting(APIDeviceSession::getId).containsExactly(20L);
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static void sleep(long millis) throws APIException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new APIException("Interrupted", e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws APIException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new APIException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.testdroid.api.download;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class RangeDownloadTest {
+
+    private static final byte[] CONTENT = new byte[1000];
+
+    static {
+        new Random(1).nextBytes(CONTENT);
+    }
+
+    @TempDir
+    Path directory;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void resumesAfterDroppedConnection() throws Exception {
+        Path target = directory.resolve("logs.zip");
+        RangeDownload download = new RangeDownload((from, to) -> {
+            requests.add(from + "-" + to);
+            return from == 0 ? response(200, 0, 600, false) : response(206, from, CONTENT.length, false);
+        }, new DownloadOptions().setRetryDelay(Duration.ZERO).setExpectedSize((long) CONTENT.length));
+        assertThat(download.run(target)).isEqualTo(CONTENT.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+        assertThat(requests).containsExactly("0--1", "600--1");
+    }
+
+    @Test
+    void downloadsRangesInParallel() throws Exception {
+        Path target = directory.resolve("screenshots.zip");
+        RangeDownload download = new RangeDownload((from, to) -> {
+            requests.add(from + "-" + to);
+            return from == 0 ? response(200, 0, CONTENT.length, true) : response(206, from, to + 1, true);
+        }, new DownloadOptions().setParallelism(3).setMinRangeSize(100));
+        assertThat(download.run(target)).isEqualTo(CONTENT.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+        assertThat(requests).containsExactlyInAnyOrder("0--1", "333-665", "666-999");
+    }
+
+    @Test
+    void failsOnSizeMismatch() {
+        RangeDownload download = new RangeDownload((from, to) -> response(200, 0, CONTENT.length, false),
+                new DownloadOptions().setExpectedSize(10L));
+        assertThrows(APIException.class, () -> download.run(directory.resolve("file.apk")));
+    }
+
+    @Test
+    void failsWhenAttemptsExhausted() {
+        RangeDownload download = new RangeDownload((from, to) -> response(200, 0, 10, false),
+                new DownloadOptions().setMaxAttempts(2).setRetryDelay(Duration.ZERO));
+        assertThrows(APIException.class, () -> download.run(directory.resolve("file.apk")));
+    }
+
+    @Test
+    void retriesFailedReconnect() throws Exception {
+        Path target = directory.resolve("logs.zip");
+        RangeDownload download = new RangeDownload((from, to) -> {
+            requests.add(from + "-" + to);
+            if (from == 0) {
+                return response(200, 0, 600, false);
+            }
+            if (requests.size() == 2) {
+                throw new APIException("Connection refused", new ConnectException("Connection refused"));
+            }
+            return response(206, from, CONTENT.length, false);
+        }, new DownloadOptions().setRetryDelay(Duration.ZERO));
+        assertThat(download.run(target)).isEqualTo(CONTENT.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+        assertThat(requests).containsExactly("0--1", "600--1", "600--1");
+    }
+
+    @Test
+    void resumesWhenFirstReconnectIsRefused() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                private final AtomicInteger connections = new AtomicInteger();
+
+                @Override
+                public MockResponse peek() {
+                    return connections.incrementAndGet() == 2
+                            ? new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START)
+                            : super.peek();
+                }
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String range = request.getHeader("Range");
+                    requests.add(Objects.toString(range, ""));
+                    if (range == null) {
+                        return new MockResponse().setBody(new Buffer().write(CONTENT))
+                                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+                    }
+                    int from = Integer.parseInt(range.replaceAll("\\D", ""));
+                    return new MockResponse().setResponseCode(206)
+                            .setHeader("Content-Range", String.format("bytes %d-%d/%d", from, CONTENT.length - 1,
+                                    CONTENT.length))
+                            .setBody(new Buffer().write(CONTENT, from, CONTENT.length - from));
+                }
+            });
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            Path target = directory.resolve("video.mp4");
+            assertThat(client.download("/files/1/file", target, new DownloadOptions()
+                    .setRetryDelay(Duration.ZERO))).isEqualTo(CONTENT.length);
+            assertThat(Files.readAllBytes(target)).isEqualTo(CONTENT);
+            assertThat(requests).hasSize(2).startsWith("");
+        }
+    }
+
+    @Test
+    void retriesServerErrorOfFirstRequest() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(error(503));
+            server.enqueue(new MockResponse().setBody(new Buffer().write(CONTENT)));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            Path target = directory.resolve("video.mp4");
+            assertThat(client.download("/files/1/file", target, new DownloadOptions()
+                    .setRetryDelay(Duration.ZERO))).isEqualTo(CONTENT.length);
+            assertThat(server.getRequestCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void requestsUncompressedContent() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(new Buffer().write(CONTENT)));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            Path target = directory.resolve("video.mp4");
+            assertThat(client.download("/files/1/file", target, new DownloadOptions()
+                    .setExpectedSize((long) CONTENT.length))).isEqualTo(CONTENT.length);
+            RecordedRequest request = server.takeRequest();
+            assertThat(request.getHeader("Accept-Encoding")).isEqualTo("identity");
+            assertThat(request.getHeader("Range")).isNull();
+        }
+    }
+
+    @Test
+    void deletesPartialFileWhenAttemptsExhausted() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(new Buffer().write(CONTENT))
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+            server.enqueue(error(503));
+            server.enqueue(error(503));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            Path target = directory.resolve("video.mp4");
+            APIException exception = assertThrows(APIException.class, () -> client.download("/files/1/file",
+                    target, new DownloadOptions().setMaxAttempts(3).setRetryDelay(Duration.ZERO)));
+            assertThat(exception.getStatus()).isEqualTo(503);
+            assertThat(target).doesNotExist();
+        }
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(error(404));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            assertThrows(APIException.class, () -> client.download("/files/1/file", directory.resolve("video.mp4"),
+                    new DownloadOptions().setRetryDelay(Duration.ZERO)));
+            assertThat(server.getRequestCount()).isEqualTo(1);
+        }
+    }
+
+    private static MockResponse error(int code) {
+        return new MockResponse().setResponseCode(code).setHeader("Content-Type", "application/json")
+                .setBody(String.format("{\"statusCode\":%d,\"message\":\"Failure\"}", code));
+    }
+
+    /**
+     * Returns response declaring length of the whole (remaining) content, but with body ending at <code>end</code>.
+     */
+    private static Response response(int code, long from, long end, boolean acceptRanges) {
+        Buffer buffer = new Buffer().write(Arrays.copyOfRange(CONTENT, (int) from, (int) end));
+        long declaredLength = code == 200 ? CONTENT.length : end - from;
+        Response.Builder builder = new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/api/v2/files/1/file").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(buffer, null, declaredLength));
+        if (code == 206) {
+            builder.header("Content-Range", String.format("bytes %d-%d/%d", from, end - 1, CONTENT.length));
+        }
+        if (acceptRanges) {
+            builder.header("Accept-Ranges", "bytes");
+        }
+        return builder.build();
+    }
+}
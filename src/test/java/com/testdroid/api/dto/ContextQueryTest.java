@@ -0,0 +1,64 @@
+package com.testdroid.api.dto;
+
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APISort;
+import com.testdroid.api.filter.FilterEntry;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class ContextQueryTest {
+
+    private static final HttpUrl BASE = HttpUrl.get("https://cloud.bitbar.com/api/v2/me/projects");
+
+    private static Stream<Context<APIEntity>> contexts() {
+        Context<APIEntity> extraParams = new Context<>(APIEntity.class).setSearch("a b");
+        extraParams.getExtraParams().put("withDisabled", true);
+        extraParams.getExtraParams().put(Context.LIMIT_REQUEST_PARAM, 5);
+        return Stream.of(
+                new Context<>(APIEntity.class),
+                new Context<>(APIEntity.class, 20, 10, "ünïcode & more", "name_a:createTime_d"),
+                new Context<>(APIEntity.class, 0, 0, null, null, List.of(
+                        new FilterEntry("osType", Operand.EQ, "ANDROID"),
+                        new FilterEntry("id", Operand.IN, List.of(1L, 2L)),
+                        new FilterEntry("createTime", Operand.AFTER, LocalDateTime.of(2024, 1, 1, 0, 0)),
+                        FilterEntry.nullFilterEntry("archiveTime")), List.of("state", "type")),
+                new Context<>(APIEntity.class, 0, 0, null, null, List.of(), null),
+                new Context<>(APIEntity.class).setSort(APISort.create(List.of()))
+                        .setFields("displayName", "online"),
+                extraParams);
+    }
+
+    @MethodSource("contexts")
+    @ParameterizedTest
+    void rendersSameUrlAsBuild(Context<APIEntity> context) {
+        HttpUrl.Builder builder = BASE.newBuilder();
+        ContextQuery.appendTo(context, builder);
+        assertThat(builder.build().toString()).isEqualTo(buildUrl(context));
+    }
+
+    /**
+     * Rendering from {@link Context#build()}, as done by clients before.
+     */
+    private static String buildUrl(Context<APIEntity> context) {
+        HttpUrl.Builder builder = BASE.newBuilder();
+        for (Map.Entry<String, Collection<Object>> entry : context.build().asMap().entrySet()) {
+            for (Object value : entry.getValue()) {
+                builder.addQueryParameter(entry.getKey(), value == null ? EMPTY : value.toString());
+            }
+        }
+        return builder.build().toString();
+    }
+}
@@ -2,6 +2,7 @@ package com.testdroid.api.dto;
 
 import com.testdroid.api.APIEntity;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -50,4 +51,13 @@ class ContextTest {
         Optional<Integer> optionalMaxResult = context.computeMaxResult();
         assertThat(optionalMaxResult).isEqualTo(Optional.ofNullable(expectedMaxResults));
     }
+
+    @Test
+    void buildsFieldsOnlyIfSet() {
+        Context<APIEntity> context = new Context<>(APIEntity.class);
+        assertThat(context.build().containsKey(Context.FIELDS_REQUEST_PARAM)).isFalse();
+        context.setFields("displayName", "online").addField("displayName");
+        assertThat(context.build().get(Context.FIELDS_REQUEST_PARAM)).containsExactly("displayName,online");
+        assertThat(context.copy().getFields()).containsExactly("displayName", "online");
+    }
 }
@@ -0,0 +1,90 @@
+package com.testdroid.api.dto;
+
+import com.testdroid.api.APISort;
+import com.testdroid.api.filter.FilterEntry;
+import com.testdroid.api.model.APIDeviceSession;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class ImmutableContextTest {
+
+    private static final FilterEntry FAILED = new FilterEntry("state", Operand.EQ, "FAILED");
+
+    @Test
+    void derivesWithoutChangingOriginal() {
+        ImmutableContext<APIDeviceSession> base = ImmutableContext.of(APIDeviceSession.class).withFilter(FAILED);
+        ImmutableContext<APIDeviceSession> next = base.withOffset(20).withFilter(FilterEntry.nullFilterEntry("end"));
+        assertThat(base.getOffset()).isZero();
+        assertThat(base.getFilters()).containsExactly(FAILED);
+        assertThat(next.getOffset()).isEqualTo(20);
+        assertThat(next.getFilters()).containsExactly(FAILED, FilterEntry.nullFilterEntry("end"));
+        assertThrows(UnsupportedOperationException.class, () -> next.getFilters().clear());
+    }
+
+    @Test
+    void equalsWhenBuiltTheSameWay() {
+        ImmutableContext<APIDeviceSession> first = ImmutableContext.of(APIDeviceSession.class)
+                .withFilter(FAILED).withOffset(10).withField("state").withExtraParam("all", true);
+        ImmutableContext<APIDeviceSession> second = ImmutableContext.of(APIDeviceSession.class)
+                .withOffset(10).withFilter(new FilterEntry("state", Operand.EQ, "FAILED")).withField("state")
+                .withField("state").withExtraParam("all", true).withCacheable(true);
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first).isNotEqualTo(first.withOffset(20)).isNotEqualTo(first.withGroup("state"));
+        assertThat(first.withOffset(20).withOffset(10)).isEqualTo(first);
+    }
+
+    @Test
+    void snapshotsMutableContext() {
+        Context<APIDeviceSession> context = new Context<>(APIDeviceSession.class).setSearch("galaxy")
+                .setSort(APISort.deserialize("createTime_d")).addFilter(FAILED).setFields("state");
+        context.getExtraParams().put("all", true);
+        ImmutableContext<APIDeviceSession> frozen = context.freeze();
+        assertThat(frozen.toContext().build()).isEqualTo(context.build());
+        context.setOffset(40).addFilter(FilterEntry.nullFilterEntry("end")).getGroups().add("state");
+        context.getSort().getSorts().clear();
+        assertThat(frozen.getOffset()).isZero();
+        assertThat(frozen.getFilters()).containsExactly(FAILED);
+        assertThat(frozen.getGroups()).isEmpty();
+        assertThat(frozen.getSort().serialize()).isEqualTo("createTime_d");
+        assertThat(frozen).isEqualTo(ImmutableContext.from(frozen.toContext()));
+    }
+
+    @Test
+    void returnsCopiesOfFilters() {
+        ImmutableContext<APIDeviceSession> context = ImmutableContext.of(APIDeviceSession.class).withFilter(FAILED);
+        int hash = context.hashCode();
+        context.getFilters().get(0).setField("end");
+        assertThat(context.getFilters()).containsExactly(FAILED);
+        assertThat(context).hasSameHashCodeAs(hash)
+                .isEqualTo(ImmutableContext.of(APIDeviceSession.class).withFilter(FAILED));
+    }
+
+    @Test
+    void serializesSortOnlyWhenItChanges() {
+        AtomicInteger serialized = new AtomicInteger();
+        APISort.SortItem item = new APISort.SortItem("createTime", APISort.Type.DESC) {
+
+            @Override
+            public StringBuilder appendTo(StringBuilder builder) {
+                serialized.incrementAndGet();
+                return super.appendTo(builder);
+            }
+        };
+        ImmutableContext<APIDeviceSession> context = ImmutableContext.of(APIDeviceSession.class)
+                .withSort(APISort.create(List.of(item)));
+        assertThat(serialized).hasValue(1);
+        ImmutableContext<APIDeviceSession> derived = context.withOffset(10).withLimit(20).withSearch("galaxy")
+                .withFilter(FAILED).withoutFilters().withGroup("state").withField("state").withExtraParam("all", true)
+                .withCacheable(true).withCount(5L);
+        assertThat(derived).isNotEqualTo(context);
+        assertThat(serialized).hasValue(1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.testdroid.api.metrics;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.model.APIUser;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.testdroid.api.metrics.MetricsListener.Phase.BODY_READ;
+import static com.testdroid.api.metrics.MetricsListener.Phase.CALL;
+import static com.testdroid.api.metrics.MetricsListener.Phase.CONNECT;
+import static com.testdroid.api.metrics.MetricsListener.Phase.TIME_TO_FIRST_BYTE;
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class MetricsEventListenerTest {
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @Test
+    void recordsPhasesOfSuccessfulCall() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                    .setBody("{\"id\":1,\"email\":\"user@bitbar.com\"}"));
+            server.start();
+            APIUser user = client(server.url("/").toString()).me();
+            assertThat(user.getId()).isEqualTo(1);
+            await().until(() -> listener.phases.contains(CALL));
+            assertThat(listener.phases).contains(CONNECT, TIME_TO_FIRST_BYTE, BODY_READ);
+            assertThat(listener.failedPhases).isEmpty();
+            assertThat(listener.parsed).containsExactly(APIUser.class);
+            assertThat(listener.responses).containsExactly("GET /me 200");
+        }
+    }
+
+    @Test
+    void endsConnectPhaseWhenConnectFails() throws Exception {
+        String url;
+        try (MockWebServer server = new MockWebServer()) {
+            server.start();
+            url = server.url("/").toString();
+        }
+        assertThrows(APIException.class, () -> client(url).me());
+        assertThat(listener.failedPhases).isNotEmpty().containsOnly(CONNECT);
+        assertThat(listener.phases).contains(CALL).doesNotContain(CONNECT);
+        assertThat(listener.failures).containsExactly("GET /me");
+    }
+
+    @Test
+    void endsBodyReadPhaseWhenResponseFails() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                    .setBody("{\"id\":1,\"email\":\"user@bitbar.com\"}")
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+            server.start();
+            assertThrows(APIException.class, () -> client(server.url("/").toString()).me());
+            await().until(() -> listener.phases.contains(CALL));
+            assertThat(listener.phases).contains(CONNECT, TIME_TO_FIRST_BYTE).doesNotContain(BODY_READ);
+            assertThat(listener.failedPhases).containsExactly(BODY_READ);
+            assertThat(listener.failures).containsExactly("GET /me");
+        }
+    }
+
+    private APIKeyClient client(String url) {
+        APIKeyClient client = new APIKeyClient(url, "key");
+        client.setMetricsListener(listener);
+        return client;
+    }
+
+    private static class RecordingListener implements MetricsListener {
+
+        private final List<Phase> phases = new CopyOnWriteArrayList<>();
+
+        private final List<Phase> failedPhases = new CopyOnWriteArrayList<>();
+
+        private final List<Type> parsed = new CopyOnWriteArrayList<>();
+
+        private final List<String> responses = new CopyOnWriteArrayList<>();
+
+        private final List<String> failures = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onPhase(String method, String uriTemplate, Phase phase, long nanos) {
+            assertThat(nanos).isNotNegative();
+            phases.add(phase);
+        }
+
+        @Override
+        public void onPhaseFailed(String method, String uriTemplate, Phase phase, long nanos, IOException exception) {
+            assertThat(nanos).isNotNegative();
+            failedPhases.add(phase);
+        }
+
+        @Override
+        public void onResponse(String method, String uriTemplate, int status, long requestBytes,
+                long responseBytes) {
+            responses.add(String.format("%s %s %d", method, uriTemplate, status));
+        }
+
+        @Override
+        public void onFailure(String method, String uriTemplate, IOException exception) {
+            failures.add(String.format("%s %s", method, uriTemplate));
+        }
+
+        @Override
+        public void onParse(Type type, long nanos, boolean success) {
+            parsed.add(type);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.testdroid.api.metrics;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class UriTemplatesTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "/me, /me",
+            "/users/1/projects/22/runs, /users/{id}/projects/{id}/runs",
+            "/users/1/device-sessions/3/output-file-set?limit=10, /users/{id}/device-sessions/{id}/output-file-set",
+            "/runs/123e4567-e89b-12d3-a456-426614174000/, /runs/{id}/",
+            "/devices/v2, /devices/v2",
+    })
+    void normalize(String uri, String expected) {
+        assertThat(UriTemplates.normalize(uri)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,213 @@
+package com.testdroid.api.mock;
+
+import com.testdroid.api.APISort;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.Operand;
+import okhttp3.HttpUrl;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * List parameters of a request, in the format produced by {@link Context#build()}, evaluated against entities
+ * of {@link MockCloudData}.
+ */
+final class ListQuery {
+
+    private static final String FILTER_ARG_DELIMITER = "\\|";
+
+    private final int offset;
+
+    private final int limit;
+
+    private final String search;
+
+    private final String sort;
+
+    private final List<Predicate<Map<String, Object>>> filters = new ArrayList<>();
+
+    private final Comparator<Map<String, Object>> order;
+
+    private ListQuery(HttpUrl url) {
+        offset = parseInt(url.queryParameter(Context.OFFSET_REQUEST_PARAM), Context.DEFAULT_OFFSET);
+        limit = parseInt(url.queryParameter(Context.LIMIT_REQUEST_PARAM), Context.DEFAULT_LIMIT);
+        search = StringUtils.trimToNull(url.queryParameter(Context.SEARCH_REQUEST_PARAM));
+        sort = StringUtils.trimToEmpty(url.queryParameter(Context.SORT_REQUEST_PARAM));
+        String filter = url.queryParameter(Context.FILTER_REQUEST_PARAM);
+        if (StringUtils.isNotBlank(filter)) {
+            for (String entry : filter.split(Context.FILTER_DELIMITER)) {
+                filters.add(parseFilter(entry));
+            }
+        }
+        order = parseSort(sort);
+    }
+
+    /**
+     * Parses list parameters of the url.
+     *
+     * @throws IllegalArgumentException if parameters are not valid
+     */
+    static ListQuery parse(HttpUrl url) {
+        return new ListQuery(url);
+    }
+
+    /**
+     * Returns page of matching entities, shaped like {@link com.testdroid.api.APIList}.
+     */
+    Map<String, Object> apply(List<Map<String, Object>> entities) {
+        List<Map<String, Object>> matching = entities.stream()
+                .filter(this::matches)
+                .sorted(order)
+                .collect(Collectors.toList());
+        int from = Math.min(offset, matching.size());
+        int to = limit <= 0 ? matching.size() : (int) Math.min((long) from + limit, matching.size());
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("offset", offset);
+        page.put("limit", limit);
+        page.put("total", matching.size());
+        page.put("search", search);
+        page.put("sort", sort);
+        page.put("data", matching.subList(from, to));
+        return page;
+    }
+
+    private boolean matches(Map<String, Object> entity) {
+        for (Predicate<Map<String, Object>> filter : filters) {
+            if (!filter.test(entity)) {
+                return false;
+            }
+        }
+        return search == null || entity.values().stream()
+                .anyMatch(value -> value instanceof String && StringUtils.containsIgnoreCase((String) value, search));
+    }
+
+    private static Predicate<Map<String, Object>> parseFilter(String entry) {
+        String[] parts = entry.split("_");
+        for (int i = 1; i < parts.length; i++) {
+            Operand operand = findOperand(parts[i]);
+            if (operand != null) {
+                String field = String.join("_", Arrays.copyOfRange(parts, 0, i));
+                String raw = String.join("_", Arrays.copyOfRange(parts, i + 1, parts.length));
+                return entity -> test(operand, get(entity, field), raw);
+            }
+        }
+        throw new IllegalArgumentException("Invalid filter " + entry);
+    }
+
+    private static Operand findOperand(String name) {
+        for (Operand operand : Operand.values()) {
+            if (operand.name().equals(name)) {
+                return operand;
+            }
+        }
+        return null;
+    }
+
+    private static boolean test(Operand operand, Object value, String raw) {
+        switch (operand) {
+            case EQ:
+                return value != null && compare(value, raw) == 0;
+            case GT:
+            case AFTER:
+                return value != null && compare(value, raw) > 0;
+            case LT:
+            case BEFORE:
+                return value != null && compare(value, raw) < 0;
+            case AFTEROREQUAL:
+                return value != null && compare(value, raw) >= 0;
+            case BEFOREOREQUAL:
+                return value != null && compare(value, raw) <= 0;
+            case AFTERORNULL:
+                return value == null || compare(value, raw) > 0;
+            case BEFOREORNULL:
+                return value == null || compare(value, raw) < 0;
+            case CONTAINS:
+                return value != null && StringUtils.containsIgnoreCase(value.toString(), raw);
+            case LIKE:
+                return value != null && like(raw).matcher(value.toString()).matches();
+            case NOTLIKE:
+                return value == null || !like(raw).matcher(value.toString()).matches();
+            case ISNULL:
+                return value == null;
+            case ISNOTNULL:
+                return value != null;
+            case EMPTY:
+                return value == null || value.toString().isEmpty()
+                        || (value instanceof Collection && ((Collection<?>) value).isEmpty());
+            case IN:
+                return value != null && in(value, raw);
+            case NOTIN:
+                return value == null || !in(value, raw);
+            case INORNULL:
+                return value == null || in(value, raw);
+            default:
+                throw new IllegalArgumentException("Unsupported operand " + operand);
+        }
+    }
+
+    private static boolean in(Object value, String raw) {
+        return Arrays.stream(raw.split(FILTER_ARG_DELIMITER)).anyMatch(item -> compare(value, item) == 0);
+    }
+
+    private static Pattern like(String raw) {
+        String regex = Arrays.stream(raw.split("%", -1)).map(Pattern::quote).collect(Collectors.joining(".*"));
+        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+
+    private static int compare(Object value, String raw) {
+        if (value instanceof Number) {
+            try {
+                return Double.compare(((Number) value).doubleValue(), Double.parseDouble(raw));
+            } catch (NumberFormatException e) {
+                return String.CASE_INSENSITIVE_ORDER.compare(value.toString(), raw);
+            }
+        }
+        return String.CASE_INSENSITIVE_ORDER.compare(value.toString(), raw);
+    }
+
+    private static Comparator<Map<String, Object>> parseSort(String sort) {
+        Comparator<Map<String, Object>> result = (a, b) -> 0;
+        for (APISort.SortItem item : APISort.deserialize(sort).getSorts()) {
+            Comparator<Map<String, Object>> byColumn = Comparator.comparing(entity -> get(entity, item.getColumn()),
+                    Comparator.nullsLast(ListQuery::compareValues));
+            result = result.thenComparing(item.getType() == APISort.Type.DESC ? byColumn.reversed() : byColumn);
+        }
+        return result;
+    }
+
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        return String.CASE_INSENSITIVE_ORDER.compare(a.toString(), b.toString());
+    }
+
+    /**
+     * Returns value of the field, nested fields are separated with dots, e.g. <code>device.displayName</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object get(Map<String, Object> entity, String field) {
+        Object value = entity;
+        for (String name : field.split("\\.")) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<String, Object>) value).get(name);
+        }
+        return value;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number " + value, e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.testdroid.api.mock;
+
+import com.testdroid.api.model.APIUserFileProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic content of {@link MockCloudServer}: one user with projects, test runs, device sessions, files and
+ * devices. Volume of each collection is configurable, entities are generated once, when the server starts.
+ */
+public class MockCloudData {
+
+    public static final long USER_ID = 1L;
+
+    private static final long CREATE_TIME = 1_700_000_000_000L;
+
+    private static final String[] SESSION_STATES = {"SUCCEEDED", "FAILED", "RUNNING", "WAITING", "WARNING"};
+
+    private int projects = 5;
+
+    private int runsPerProject = 10;
+
+    private int sessionsPerRun = 10;
+
+    private int files = 50;
+
+    private int devices = 20;
+
+    private Map<String, Object> user;
+
+    private final Map<String, List<Map<String, Object>>> collections = new LinkedHashMap<>();
+
+    public MockCloudData setProjects(int projects) {
+        this.projects = projects;
+        return this;
+    }
+
+    public MockCloudData setRunsPerProject(int runsPerProject) {
+        this.runsPerProject = runsPerProject;
+        return this;
+    }
+
+    public MockCloudData setSessionsPerRun(int sessionsPerRun) {
+        this.sessionsPerRun = sessionsPerRun;
+        return this;
+    }
+
+    public MockCloudData setFiles(int files) {
+        this.files = files;
+        return this;
+    }
+
+    public MockCloudData setDevices(int devices) {
+        this.devices = devices;
+        return this;
+    }
+
+    public Map<String, Object> getUser() {
+        return user;
+    }
+
+    /**
+     * Returns entities of collection named like its URI segment, e.g. <code>device-sessions</code>, or
+     * <code>null</code> for unknown collection.
+     */
+    public List<Map<String, Object>> getCollection(String name) {
+        return collections.get(name);
+    }
+
+    synchronized void generate() {
+        if (user != null) {
+            return;
+        }
+        user = record(USER_ID);
+        user.put("email", "user@example.com");
+        user.put("name", "Mock User");
+        user.put("accountId", 1L);
+        user.put("apiKey", MockCloudServer.API_KEY);
+        user.put("enabled", true);
+        user.put("timeZone", "UTC");
+        List<Map<String, Object>> deviceList = new ArrayList<>();
+        for (long id = 1; id <= devices; id++) {
+            deviceList.add(device(id));
+        }
+        List<Map<String, Object>> projectList = new ArrayList<>();
+        List<Map<String, Object>> runList = new ArrayList<>();
+        List<Map<String, Object>> sessionList = new ArrayList<>();
+        for (long projectId = 1; projectId <= projects; projectId++) {
+            Map<String, Object> project = record(projectId);
+            project.put("name", "Project " + projectId);
+            project.put("osType", projectId % 2 == 0 ? "IOS" : "ANDROID");
+            projectList.add(project);
+            for (int number = 1; number <= runsPerProject; number++) {
+                long runId = runList.size() + 1L;
+                Map<String, Object> run = record(runId);
+                run.put("projectId", projectId);
+                run.put("projectName", project.get("name"));
+                run.put("number", number);
+                run.put("displayName", "Test run " + number);
+                run.put("state", number == runsPerProject ? "RUNNING" : "FINISHED");
+                run.put("deviceCount", sessionsPerRun);
+                run.put("successRatio", 0.9);
+                runList.add(run);
+                for (int i = 0; i < sessionsPerRun; i++) {
+                    long sessionId = sessionList.size() + 1L;
+                    Map<String, Object> session = record(sessionId);
+                    session.put("testRunId", runId);
+                    session.put("projectId", projectId);
+                    session.put("state", SESSION_STATES[(int) (sessionId % SESSION_STATES.length)]);
+                    session.put("deviceTime", 60_000L);
+                    session.put("device", deviceList.isEmpty() ? null : deviceList.get(i % deviceList.size()));
+                    sessionList.add(session);
+                }
+            }
+        }
+        List<Map<String, Object>> fileList = new ArrayList<>();
+        for (long id = 1; id <= files; id++) {
+            Map<String, Object> file = record(id);
+            file.put("name", "file-" + id + (id % 2 == 0 ? ".apk" : ".zip"));
+            file.put("size", 1024L * id);
+            file.put("state", "READY");
+            file.put("direction", "INPUT");
+            file.put("mimetype", "application/octet-stream");
+            file.put("fileProperties", List.of(Map.of("key", APIUserFileProperty.Key.VIRUS_SCAN_STATUS.value(),
+                    "value", APIUserFileProperty.VirusScanStatus.SAFE.value())));
+            fileList.add(file);
+        }
+        collections.put("projects", Collections.unmodifiableList(projectList));
+        collections.put("runs", Collections.unmodifiableList(runList));
+        collections.put("device-sessions", Collections.unmodifiableList(sessionList));
+        collections.put("files", Collections.unmodifiableList(fileList));
+        collections.put("devices", Collections.unmodifiableList(deviceList));
+    }
+
+    private static Map<String, Object> device(long id) {
+        Map<String, Object> device = record(id);
+        device.put("displayName", "Device " + id);
+        device.put("manufacturer", id % 2 == 0 ? "Apple" : "Samsung");
+        device.put("osType", id % 2 == 0 ? "IOS" : "ANDROID");
+        device.put("online", id % 3 != 0);
+        device.put("locked", false);
+        device.put("enabled", true);
+        return device;
+    }
+
+    private static Map<String, Object> record(long id) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", id);
+        record.put("createTime", CREATE_TIME + id * 1000);
+        record.put("userId", USER_ID);
+        return record;
+    }
+}
@@ -0,0 +1,248 @@
+package com.testdroid.api.mock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.testdroid.api.APIExceptionMessage;
+import com.testdroid.api.APIKeyClient;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.testdroid.api.APIEntity.OBJECT_MAPPER;
+import static java.net.HttpURLConnection.*;
+
+/**
+ * In-process server of a subset of Bitbar Cloud API v2, for offline integration and load tests of the client.
+ * Serves read only <code>/me</code>, <code>/users/{id}</code>, <code>/devices</code> and nested
+ * <code>projects</code>, <code>runs</code>, <code>device-sessions</code> and <code>files</code> of the user, under
+ * both of its URIs, as single entities and lists honoring <code>offset</code>, <code>limit</code>,
+ * <code>filter</code>, <code>sort</code> and <code>search</code> parameters. Latency and errors can be injected.
+ * <pre>
+ * try (MockCloudServer server = new MockCloudServer().start()) {
+ *     APIKeyClient client = server.createClient();
+ *     ...
+ * }
+ * </pre>
+ */
+public class MockCloudServer implements AutoCloseable {
+
+    public static final String API_KEY = "mock-api-key";
+
+    private static final String API_PREFIX = "api";
+
+    private static final String API_VERSION = "v2";
+
+    private static final Map<String, String> PARENT_KEYS = Map.of("projects", "projectId", "runs", "testRunId");
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final MockCloudData data;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicInteger failNextCount = new AtomicInteger();
+
+    private volatile int failNextStatus = HTTP_UNAVAILABLE;
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile double errorRate;
+
+    private volatile int errorStatus = HTTP_UNAVAILABLE;
+
+    public MockCloudServer() {
+        this(new MockCloudData());
+    }
+
+    public MockCloudServer(MockCloudData data) {
+        this.data = data;
+    }
+
+    public MockCloudServer start() throws IOException {
+        data.generate();
+        server.setDispatcher(new CloudDispatcher());
+        server.start();
+        return this;
+    }
+
+    /**
+     * Returns URL of the cloud, to be passed to client constructors.
+     */
+    public String getCloudUrl() {
+        return server.url("/").toString();
+    }
+
+    public APIKeyClient createClient() {
+        return new APIKeyClient(getCloudUrl(), API_KEY);
+    }
+
+    public MockCloudData getData() {
+        return data;
+    }
+
+    /**
+     * Delays headers of every response.
+     */
+    public MockCloudServer setLatency(Duration latency) {
+        this.latency = Objects.requireNonNull(latency);
+        return this;
+    }
+
+    /**
+     * Fails randomly chosen requests with given status.
+     *
+     * @param errorRate fraction of failed requests, from <code>0</code> to <code>1</code>
+     */
+    public MockCloudServer setErrorRate(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Fails next <code>count</code> requests with given status.
+     */
+    public MockCloudServer failNext(int count, int status) {
+        failNextStatus = status;
+        failNextCount.set(count);
+        return this;
+    }
+
+    /**
+     * Returns number of requests received, including failed ones.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) throws JsonProcessingException {
+        if (!Credentials.basic(API_KEY, "").equals(request.getHeader("Authorization"))) {
+            return error(HTTP_UNAUTHORIZED, "Unauthorized");
+        }
+        if (failNextCount.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            return error(failNextStatus, "Injected failure");
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return error(errorStatus, "Injected failure");
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return error(HTTP_BAD_METHOD, "Method not supported by mock server");
+        }
+        HttpUrl url = Objects.requireNonNull(request.getRequestUrl());
+        List<String> path = url.pathSegments().stream().filter(s -> !s.isEmpty()).collect(Collectors.toList());
+        if (path.size() < 3 || !API_PREFIX.equals(path.get(0)) || !API_VERSION.equals(path.get(1))) {
+            return error(HTTP_NOT_FOUND, "Not found");
+        }
+        try {
+            Object entity = route(path.subList(2, path.size()), url);
+            return entity == null ? error(HTTP_NOT_FOUND, "Not found") : json(HTTP_OK, entity);
+        } catch (IllegalArgumentException e) {
+            return error(HTTP_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private Object route(List<String> path, HttpUrl url) {
+        String root = path.get(0);
+        if ("me".equals(root)) {
+            return path.size() == 1 ? data.getUser() : resolve(path.subList(1, path.size()), url);
+        }
+        if ("devices".equals(root)) {
+            return resolve(path, url);
+        }
+        if ("users".equals(root) && path.size() >= 2
+                && String.valueOf(MockCloudData.USER_ID).equals(path.get(1))) {
+            return path.size() == 2 ? data.getUser() : resolve(path.subList(2, path.size()), url);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves path of collections and ids, like <code>projects/1/runs/2/device-sessions</code>. Entities of
+     * nested collections are limited to those of parent entities.
+     */
+    private Object resolve(List<String> path, HttpUrl url) {
+        Map<String, Long> parents = new HashMap<>();
+        for (int i = 0; i < path.size(); i += 2) {
+            String collection = path.get(i);
+            List<Map<String, Object>> entities = data.getCollection(collection);
+            if (entities == null) {
+                return null;
+            }
+            List<Map<String, Object>> children = entities.stream()
+                    .filter(entity -> parents.entrySet().stream()
+                            .allMatch(parent -> parent.getValue().equals(entity.get(parent.getKey()))))
+                    .collect(Collectors.toList());
+            if (i + 1 == path.size()) {
+                return ListQuery.parse(url).apply(children);
+            }
+            Long id = parseId(path.get(i + 1));
+            Map<String, Object> entity = children.stream().filter(e -> Objects.equals(id, e.get("id")))
+                    .findAny().orElse(null);
+            if (entity == null || i + 2 == path.size()) {
+                return entity;
+            }
+            String parentKey = PARENT_KEYS.get(collection);
+            if (parentKey == null) {
+                return null;
+            }
+            parents.put(parentKey, id);
+        }
+        return null;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static MockResponse error(int status, String message) throws JsonProcessingException {
+        return json(status, new APIExceptionMessage(status, message));
+    }
+
+    private static MockResponse json(int status, Object body) throws JsonProcessingException {
+        return new MockResponse().setResponseCode(status)
+                .setHeader("Content-Type", "application/json")
+                .setBody(OBJECT_MAPPER.writeValueAsString(body));
+    }
+
+    private class CloudDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            requestCount.incrementAndGet();
+            MockResponse response;
+            try {
+                response = respond(request);
+            } catch (JsonProcessingException e) {
+                response = new MockResponse().setResponseCode(HTTP_INTERNAL_ERROR);
+            }
+            Duration delay = latency;
+            if (!delay.isZero()) {
+                response.setHeadersDelay(delay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return response;
+        }
+    }
+}
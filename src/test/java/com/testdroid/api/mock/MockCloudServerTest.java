@@ -0,0 +1,88 @@
+package com.testdroid.api.mock;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.APIList;
+import com.testdroid.api.APIListResource;
+import com.testdroid.api.APISort;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.Operand;
+import com.testdroid.api.filter.FilterEntry;
+import com.testdroid.api.model.APIDevice;
+import com.testdroid.api.model.APIDeviceSession;
+import com.testdroid.api.model.APIProject;
+import com.testdroid.api.model.APITestRun;
+import com.testdroid.api.retry.ExponentialBackoffRetryPolicy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class MockCloudServerTest {
+
+    private static MockCloudServer server;
+
+    private static APIKeyClient client;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        server = new MockCloudServer(new MockCloudData().setProjects(4).setRunsPerProject(3).setSessionsPerRun(5))
+                .start();
+        client = server.createClient();
+    }
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void listsWithFilterSortAndPaging() throws APIException {
+        Context<APIProject> context = new Context<>(APIProject.class)
+                .addFilter(new FilterEntry("osType", Operand.EQ, APIDevice.OsType.ANDROID))
+                .setSort(APISort.create(List.of(new APISort.SortItem("name", APISort.Type.DESC))))
+                .setLimit(1);
+        APIListResource<APIProject> resource = client.me().getProjectsResource(context);
+        APIList<APIProject> page = resource.getEntity();
+        assertThat(page.getTotal()).isEqualTo(2);
+        assertThat(page.getData()).extracting(APIProject::getName).containsExactly("Project 3");
+        assertThat(resource.getNext().getEntity().getData()).extracting(APIProject::getName)
+                .containsExactly("Project 1");
+    }
+
+    @Test
+    void listsNestedEntities() throws APIException {
+        APIList<APIDeviceSession> sessions = client.get("/me/projects/2/runs/4/device-sessions",
+                new Context<>(APIDeviceSession.class).setSearch("Device"));
+        assertThat(sessions.getTotal()).isZero();
+        sessions = client.get("/users/1/projects/2/runs/4/device-sessions", new Context<>(APIDeviceSession.class)
+                .addFilter(new FilterEntry("state", Operand.IN, List.of("SUCCEEDED", "FAILED"))));
+        assertThat(sessions.getData()).isNotEmpty().allSatisfy(session -> {
+            assertThat(session.getTestRunId()).isEqualTo(4L);
+            assertThat(session.getState()).isIn(APIDeviceSession.State.SUCCEEDED, APIDeviceSession.State.FAILED);
+        });
+        assertThrows(APIException.class, () -> client.get("/me/projects/1/runs/4", APITestRun.class));
+    }
+
+    @Test
+    void retriesInjectedFailures() throws APIException {
+        APIKeyClient retryingClient = server.createClient();
+        retryingClient.setRetryPolicy(new ExponentialBackoffRetryPolicy().setMaxAttempts(3)
+                .setInitialDelay(Duration.ofMillis(1)).setJitter(0));
+        long requests = server.getRequestCount();
+        server.failNext(2, 503);
+        assertThat(retryingClient.me().getEmail()).isEqualTo("user@example.com");
+        assertThat(server.getRequestCount() - requests).isEqualTo(3);
+        retryingClient.close();
+    }
+}
@@ -0,0 +1,234 @@
+package com.testdroid.api.model;
+
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Tag(UNIT)
+class TestRunWatcherTest {
+
+    private static final String RUNS_URI = "/users/1/projects/2/runs";
+
+    private static final long RUN_ID = 7;
+
+    private final RunDispatcher first = new RunDispatcher(3);
+
+    private final RunDispatcher second = new RunDispatcher(1);
+
+    private final RecordingListener listener = new RecordingListener();
+
+    private MockWebServer firstServer;
+
+    private MockWebServer secondServer;
+
+    private TestRunWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        firstServer = start(first);
+        secondServer = start(second);
+        watcher = new TestRunWatcher(Duration.ofMillis(10), Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.close();
+        firstServer.shutdown();
+        secondServer.shutdown();
+    }
+
+    @Test
+    void notifiesSessionsFinishedSincePreviousFetch() throws Exception {
+        CompletableFuture<APITestRun> finished = watcher.watch(getRun(firstServer), listener, Duration.ofSeconds(10));
+        first.finished = 1;
+        await().until(() -> listener.sessions.size() == 1);
+        first.finished = 3;
+        APITestRun run = finished.get(5, TimeUnit.SECONDS);
+        assertThat(run.getState()).isEqualTo(APITestRun.State.FINISHED);
+        assertThat(listener.sessions).containsExactly(1L, 2L, 3L);
+        assertThat(first.sessionsSince).containsExactly(null, RunDispatcher.endTime(1));
+        assertThat(listener.errors).isEmpty();
+    }
+
+    @Test
+    void notifiesListenerOnSchedulerThread() throws Exception {
+        first.finished = 3;
+        watcher.watch(getRun(firstServer), listener, Duration.ofSeconds(10)).get(5, TimeUnit.SECONDS);
+        assertThat(listener.threads).isNotEmpty().allMatch("test-run-watcher"::equals);
+    }
+
+    @Test
+    void pagesFinishedSessions() throws Exception {
+        RunDispatcher dispatcher = new RunDispatcher(TestRunWatcher.BATCH_SIZE * 2 + 50);
+        dispatcher.finished = dispatcher.devices;
+        firstServer.setDispatcher(dispatcher);
+        watcher.watch(getRun(firstServer), listener, Duration.ofSeconds(10)).get(5, TimeUnit.SECONDS);
+        assertThat(listener.sessions).containsExactlyElementsOf(
+                LongStream.rangeClosed(1, dispatcher.devices).boxed().collect(Collectors.toList()));
+        assertThat(dispatcher.sessionsSince).hasSize(1);
+        assertThat(dispatcher.sessionPages).isEqualTo(3);
+    }
+
+    @Test
+    void completesRunWhenSessionsCannotBeFetched() throws Exception {
+        first.finished = 3;
+        first.failSessions = true;
+        APITestRun run = watcher.watch(getRun(firstServer), listener, Duration.ofSeconds(10))
+                .get(5, TimeUnit.SECONDS);
+        assertThat(run.getState()).isEqualTo(APITestRun.State.FINISHED);
+        assertThat(listener.errors).hasSize(1);
+        assertThat(listener.sessions).isEmpty();
+    }
+
+    @Test
+    void watchesRunsOfEachClientSeparately() throws Exception {
+        CompletableFuture<APITestRun> firstRun = watcher.watch(getRun(firstServer), Duration.ofSeconds(10));
+        CompletableFuture<APITestRun> secondRun = watcher.watch(getRun(secondServer), Duration.ofSeconds(10));
+        assertThat(secondRun).isNotCompletedExceptionally();
+        await().until(() -> first.runsRequests > 0 && second.runsRequests > 0);
+        first.finished = 3;
+        second.finished = 1;
+        assertThat(firstRun.get(5, TimeUnit.SECONDS).getState()).isEqualTo(APITestRun.State.FINISHED);
+        assertThat(secondRun.get(5, TimeUnit.SECONDS).getState()).isEqualTo(APITestRun.State.FINISHED);
+    }
+
+    private static MockWebServer start(Dispatcher dispatcher) throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        return server;
+    }
+
+    private static APITestRun getRun(MockWebServer server) {
+        APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+        try {
+            return client.get(String.format("%s/%d", RUNS_URI, RUN_ID), APITestRun.class);
+        } catch (APIException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class RecordingListener implements TestRunListener {
+
+        private final List<Long> sessions = new CopyOnWriteArrayList<>();
+
+        private final List<APIException> errors = new CopyOnWriteArrayList<>();
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onStateChanged(APITestRun run, APITestRun.State previousState) {
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void onDeviceSessionFinished(APITestRun run, APIDeviceSession deviceSession) {
+            threads.add(Thread.currentThread().getName());
+            sessions.add(deviceSession.getId());
+        }
+
+        @Override
+        public void onError(APITestRun run, APIException exception) {
+            threads.add(Thread.currentThread().getName());
+            errors.add(exception);
+        }
+    }
+
+    /**
+     * Serves a single run on given number of devices, sessions finish in order of their IDs.
+     */
+    private static class RunDispatcher extends Dispatcher {
+
+        private static final Pattern SINCE = Pattern.compile("endTime_AFTEROREQUAL_(\\d+)");
+
+        private final int devices;
+
+        private final List<Long> sessionsSince = new CopyOnWriteArrayList<>();
+
+        private volatile int finished;
+
+        private volatile int runsRequests;
+
+        private volatile int sessionPages;
+
+        private volatile boolean failSessions;
+
+        private RunDispatcher(int devices) {
+            this.devices = devices;
+        }
+
+        private static long endTime(long sessionId) {
+            return 1_700_000_000_000L + sessionId * 1000;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            HttpUrl url = Objects.requireNonNull(request.getRequestUrl());
+            String path = url.encodedPath();
+            if (path.endsWith(RUNS_URI)) {
+                runsRequests++;
+                return json(String.format("{\"offset\":0,\"limit\":1,\"total\":1,\"data\":[%s]}", run()));
+            }
+            if (path.endsWith("/device-sessions")) {
+                return sessions(url);
+            }
+            return json(run());
+        }
+
+        private MockResponse sessions(HttpUrl url) {
+            if (failSessions) {
+                return new MockResponse().setResponseCode(500);
+            }
+            Matcher matcher = SINCE.matcher(url.toString());
+            Long since = matcher.find() ? Long.parseLong(matcher.group(1)) : null;
+            int offset = Integer.parseInt(Objects.requireNonNull(url.queryParameter("offset")));
+            int limit = Integer.parseInt(Objects.requireNonNull(url.queryParameter("limit")));
+            sessionPages++;
+            if (offset == 0) {
+                sessionsSince.add(since);
+            }
+            List<Long> ids = LongStream.rangeClosed(1, finished)
+                    .filter(id -> since == null || endTime(id) >= since).boxed().collect(Collectors.toList());
+            String data = ids.stream().skip(offset).limit(limit)
+                    .map(id -> String.format("{\"id\":%d,\"state\":\"SUCCEEDED\",\"endTime\":%d}", id, endTime(id)))
+                    .collect(Collectors.joining(","));
+            return json(String.format("{\"offset\":%d,\"limit\":%d,\"total\":%d,\"data\":[%s]}", offset, limit,
+                    ids.size(), data));
+        }
+
+        private String run() {
+            int finishedCount = finished;
+            return String.format("{\"id\":%d,\"state\":\"%s\",\"finishedDeviceCount\":%d,\"executionRatio\":%s}",
+                    RUN_ID, finishedCount == devices ? "FINISHED" : "RUNNING", finishedCount,
+                    (float) finishedCount / devices);
+        }
+
+        private static MockResponse json(String body) {
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+        }
+    }
+}
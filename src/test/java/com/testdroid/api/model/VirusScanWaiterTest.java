@@ -0,0 +1,238 @@
+package com.testdroid.api.model;
+
+import com.testdroid.api.APIClient;
+import com.testdroid.api.APIException;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.APIListResource;
+import com.testdroid.api.dto.Context;
+import com.testdroid.api.dto.MappingKey;
+import com.testdroid.api.dto.Operand;
+import com.testdroid.api.filter.FilterEntry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class VirusScanWaiterTest {
+
+    private static final String FILES_URI = "/users/1/files";
+
+    private final FilesDispatcher first = new FilesDispatcher();
+
+    private final FilesDispatcher second = new FilesDispatcher();
+
+    private MockWebServer firstServer;
+
+    private MockWebServer secondServer;
+
+    private VirusScanWaiter waiter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        firstServer = start(first);
+        secondServer = start(second);
+        waiter = new VirusScanWaiter(Duration.ofMillis(10), Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        waiter.close();
+        firstServer.shutdown();
+        secondServer.shutdown();
+    }
+
+    @Test
+    void completesWhenScanIsAccepted() throws Exception {
+        APIUserFile file = getFile(firstServer, 5);
+        CompletableFuture<APIUserFile> scanned = waiter.waitFor(file, Duration.ofSeconds(10));
+        await().until(() -> first.listRequests.get() > 0);
+        assertThat(scanned).isNotDone();
+        first.status = APIUserFileProperty.VirusScanStatus.SAFE;
+        assertThat(scanned.get(5, TimeUnit.SECONDS).getVirusScanStatus()).isEqualTo("safe");
+    }
+
+    @Test
+    void failsWhenFileIsInfected() {
+        first.status = APIUserFileProperty.VirusScanStatus.INFECTED;
+        CompletableFuture<APIUserFile> scanned = waiter.waitFor(getFile(firstServer, 5), Duration.ofSeconds(10));
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> scanned.get(5, TimeUnit.SECONDS));
+        assertThat(thrown.getCause()).isInstanceOf(APIException.class);
+    }
+
+    @Test
+    void cancelsOnlyWaitOfOneCaller() throws Exception {
+        APIUserFile file = getFile(firstServer, 5);
+        CompletableFuture<APIUserFile> cancelled = waiter.waitFor(file, Duration.ofSeconds(10));
+        CompletableFuture<APIUserFile> waiting = waiter.waitFor(file, Duration.ofSeconds(10));
+        assertThat(cancelled).isNotSameAs(waiting);
+        cancelled.cancel(false);
+        first.status = APIUserFileProperty.VirusScanStatus.SAFE;
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getId()).isEqualTo(5);
+    }
+
+    @Test
+    void refreshesInstanceOfEachCaller() throws Exception {
+        APIUserFile file = getFile(firstServer, 5);
+        APIUserFile sameFile = getFile(firstServer, 5);
+        CompletableFuture<APIUserFile> scanned = waiter.waitFor(file, Duration.ofSeconds(10));
+        CompletableFuture<APIUserFile> sameScanned = waiter.waitFor(sameFile, Duration.ofSeconds(10));
+        first.status = APIUserFileProperty.VirusScanStatus.SAFE;
+        assertThat(scanned.get(5, TimeUnit.SECONDS)).isSameAs(file);
+        assertThat(sameScanned.get(5, TimeUnit.SECONDS)).isSameAs(sameFile);
+        assertThat(sameFile.getVirusScanStatus()).isEqualTo("safe");
+    }
+
+    @Test
+    void pollsBlockingClientOffScheduler() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (VirusScanWaiter blockingWaiter = new VirusScanWaiter(scheduler, Duration.ofMillis(10),
+                Duration.ofMillis(20))) {
+            APIUserFile file = getFile(blockingClient(firstServer), 5);
+            int requests = first.listRequests.get();
+            first.blocked = new CountDownLatch(1);
+            CompletableFuture<APIUserFile> scanned = blockingWaiter.waitFor(file, Duration.ofSeconds(10));
+            await().until(() -> first.listRequests.get() > requests);
+            // scheduler is free while the blocking request waits for the server
+            assertThat(scheduler.submit(() -> true).get(5, TimeUnit.SECONDS)).isTrue();
+            first.status = APIUserFileProperty.VirusScanStatus.SAFE;
+            first.blocked.countDown();
+            assertThat(scanned.get(5, TimeUnit.SECONDS).getVirusScanStatus()).isEqualTo("safe");
+        } finally {
+            first.blocked.countDown();
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void stopsChecksWhenAllCallersCancel() throws Exception {
+        APIUserFile file = getFile(firstServer, 5);
+        List<CompletableFuture<APIUserFile>> futures = waiter.waitFor(List.of(file, file), Duration.ofSeconds(10));
+        await().until(() -> first.listRequests.get() > 0);
+        futures.forEach(future -> future.cancel(false));
+        Thread.sleep(50);
+        int requests = first.listRequests.get();
+        Thread.sleep(100);
+        assertThat(first.listRequests.get()).isEqualTo(requests);
+    }
+
+    @Test
+    void checksFilesOfEachClientSeparately() throws Exception {
+        CompletableFuture<APIUserFile> firstScanned = waiter.waitFor(getFile(firstServer, 5), Duration.ofSeconds(10));
+        CompletableFuture<APIUserFile> secondScanned = waiter.waitFor(getFile(secondServer, 6),
+                Duration.ofSeconds(10));
+        await().until(() -> first.listRequests.get() > 0 && second.listRequests.get() > 0);
+        first.status = APIUserFileProperty.VirusScanStatus.SAFE;
+        second.status = APIUserFileProperty.VirusScanStatus.SAFE;
+        assertThat(firstScanned.get(5, TimeUnit.SECONDS).getId()).isEqualTo(5);
+        assertThat(secondScanned.get(5, TimeUnit.SECONDS).getId()).isEqualTo(6);
+    }
+
+    @Test
+    void timesOut() {
+        CompletableFuture<APIUserFile> scanned = waiter.waitFor(getFile(firstServer, 5), Duration.ofMillis(50));
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> scanned.get(5, TimeUnit.SECONDS));
+        assertThat(thrown.getCause()).isInstanceOf(APIException.class);
+        assertThat(((APIException) thrown.getCause()).getStatus()).isEqualTo(408);
+    }
+
+    private static MockWebServer start(Dispatcher dispatcher) throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        return server;
+    }
+
+    private static APIUserFile getFile(MockWebServer server, long id) {
+        APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+        try {
+            return client.get(String.format("%s/%d", FILES_URI, id), APIUserFile.class);
+        } catch (APIException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns file fetched through given client, which is then used to check the file.
+     */
+    private static APIUserFile getFile(APIClient client, long id) throws APIException {
+        Context<APIUserFile> context = new Context<>(APIUserFile.class)
+                .addFilter(new FilterEntry(MappingKey.ID, Operand.IN, List.of(id)));
+        return new APIListResource<>(client, FILES_URI, context).getEntity().getData().get(0);
+    }
+
+    /**
+     * Returns client of the server which implements only blocking {@link APIClient}.
+     */
+    private static APIClient blockingClient(MockWebServer server) {
+        APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+        return (APIClient) Proxy.newProxyInstance(VirusScanWaiterTest.class.getClassLoader(),
+                new Class<?>[]{APIClient.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(client, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Serves files of any ID, all with the same virus scan status.
+     */
+    private static class FilesDispatcher extends Dispatcher {
+
+        private volatile APIUserFileProperty.VirusScanStatus status = APIUserFileProperty.VirusScanStatus.SCANNING;
+
+        private final AtomicInteger listRequests = new AtomicInteger();
+
+        private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String path = request.getRequestUrl().encodedPath();
+            if (path.endsWith(FILES_URI)) {
+                listRequests.incrementAndGet();
+                blocked.await();
+                String filter = request.getRequestUrl().queryParameter("filter");
+                List<String> files = Arrays.stream(filter.substring(filter.lastIndexOf('_') + 1).split("\\D+"))
+                        .map(id -> file(Long.parseLong(id))).collect(Collectors.toList());
+                return json(String.format("{\"offset\":0,\"limit\":%d,\"total\":%d,\"data\":[%s]}", files.size(),
+                        files.size(), String.join(",", files)));
+            }
+            return json(file(Long.parseLong(path.substring(path.lastIndexOf('/') + 1))));
+        }
+
+        private String file(long id) {
+            return String.format("{\"id\":%d,\"fileProperties\":[{\"key\":\"%s\",\"value\":\"%s\"}]}", id,
+                    APIUserFileProperty.Key.VIRUS_SCAN_STATUS.value(), status.value());
+        }
+
+        private static MockResponse json(String body) {
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.testdroid.api.retry;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class ExponentialBackoffRetryPolicyTest {
+
+    private final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy()
+            .setMaxAttempts(5)
+            .setInitialDelay(Duration.ofMillis(100))
+            .setMaxDelay(Duration.ofMillis(500))
+            .setJitter(0);
+
+    @Test
+    void backsOffExponentiallyUpToMaxDelay() {
+        assertThat(policy.getRetryDelay(1, 503, null)).isEqualTo(Duration.ofMillis(100));
+        assertThat(policy.getRetryDelay(2, null, null)).isEqualTo(Duration.ofMillis(200));
+        assertThat(policy.getRetryDelay(3, 429, null)).isEqualTo(Duration.ofMillis(400));
+        assertThat(policy.getRetryDelay(4, 502, null)).isEqualTo(Duration.ofMillis(500));
+        assertThat(policy.getRetryDelay(5, 502, null)).isNull();
+    }
+
+    @Test
+    void honorsRetryAfter() {
+        assertThat(policy.getRetryDelay(1, 429, Duration.ofMillis(300))).isEqualTo(Duration.ofMillis(300));
+        assertThat(policy.getRetryDelay(1, 429, Duration.ofSeconds(1))).isNull();
+    }
+
+    @Test
+    void retriesOnlyIdempotentCallsByDefault() {
+        assertThat(policy.getRetryDelay(1, 400, null)).isNull();
+        assertThat(policy.isRetryable("GET", "/me")).isTrue();
+        assertThat(policy.isRetryable("DELETE", "/runs/1")).isTrue();
+        assertThat(policy.isRetryable("POST", "/runs")).isFalse();
+        policy.setRetryablePost(uri -> uri.endsWith("/abort"));
+        assertThat(policy.isRetryable("POST", "/runs/1/abort")).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.testdroid.api.throttle;
+
+import com.testdroid.api.APIKeyClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class RequestLimiterTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "/runs, /users/1/projects/2/runs, true",
+            "/runs, /users/1/projects/2/runs/3?x=1, true",
+            "/runs, /runs, true",
+            "/runs, /users/1/runs-config, false",
+            "/device-sessions, /users/1/runs/2/device-sessions/3, true",
+            "/files, /users/1/projects, false",
+    })
+    void matchesUri(String uriPath, String uri, boolean expected) {
+        assertThat(RequestLimit.forUri(uriPath).matches("GET", uri)).isEqualTo(expected);
+    }
+
+    @Test
+    void failFastOnInFlightLimit() throws Exception {
+        RequestLimiter limiter = new RequestLimiter()
+                .addLimit(new RequestLimit("POST", "/runs").setMaxInFlight(1))
+                .setFailFast(true);
+        RequestLimiter.Permit permit = limiter.acquire("POST", "/users/1/runs");
+        assertThrows(RequestLimitExceededException.class, () -> limiter.acquire("POST", "/users/1/runs"));
+        limiter.acquire("GET", "/users/1/runs").release();
+        permit.release();
+        limiter.acquire("POST", "/users/1/runs").release();
+        assertThat(limiter.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void queuesOverInFlightLimit() throws Exception {
+        RequestLimiter limiter = new RequestLimiter().addLimit(RequestLimit.forAll().setMaxInFlight(1));
+        RequestLimiter.Permit permit = limiter.acquire("GET", "/me");
+        CompletableFuture<RequestLimiter.Permit> queued = limiter.acquireAsync("GET", "/me");
+        assertThat(queued).isNotDone();
+        assertThat(limiter.getStates().get(0).queued()).isEqualTo(1);
+        permit.release();
+        assertThat(queued).isDone();
+        assertThat(limiter.getStates().get(0).inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenRateExhaustedInFailFastMode() {
+        RequestLimiter limiter = new RequestLimiter()
+                .addLimit(RequestLimit.forMethod("GET").setRate(0.001, 2))
+                .setFailFast(true);
+        assertThat(limiter.acquireAsync("GET", "/me")).isDone();
+        assertThat(limiter.acquireAsync("GET", "/me")).isDone();
+        assertThat(limiter.acquireAsync("GET", "/me")).isCompletedExceptionally();
+    }
+
+    @Test
+    void returnsTokensWhenRejectedByInFlightLimit() throws Exception {
+        RequestLimiter limiter = new RequestLimiter()
+                .addLimit(RequestLimit.forMethod("POST").setRate(0.001, 2))
+                .addLimit(RequestLimit.forUri("/runs").setMaxInFlight(1))
+                .setFailFast(true);
+        RequestLimiter.Permit permit = limiter.acquire("POST", "/users/1/runs");
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RequestLimitExceededException.class, () -> limiter.acquire("POST", "/users/1/runs"));
+        }
+        assertThat(limiter.getStates().get(0).availableTokens()).isGreaterThanOrEqualTo(1);
+        permit.release();
+        limiter.acquire("POST", "/users/1/runs").release();
+        assertThat(limiter.getRejected()).isEqualTo(3);
+    }
+
+    @Test
+    void holdsInFlightSlotUntilResponseBodyIsClosed() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            for (int i = 0; i < 3; i++) {
+                server.enqueue(new MockResponse().setBody("content"));
+            }
+            server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"id\":1}"));
+            server.start();
+            APIKeyClient client = new APIKeyClient(server.url("/").toString(), "key");
+            RequestLimiter limiter = new RequestLimiter().addLimit(RequestLimit.forAll().setMaxInFlight(2));
+            client.setRequestLimiter(limiter);
+            Response response = client.getHttpResponse("/files/1/file", null);
+            InputStream stream = client.get("/files/2/file");
+            CompletableFuture<Response> queued = client.getHttpResponseAsync("/files/3/file", null);
+            assertThat(limiter.getStates().get(0).queued()).isEqualTo(1);
+            response.close();
+            try (Response asyncResponse = queued.get(5, TimeUnit.SECONDS)) {
+                assertThat(limiter.getStates().get(0).inFlight()).isEqualTo(2);
+                try (stream) {
+                    assertThat(new String(stream.readAllBytes(), UTF_8)).isEqualTo("content");
+                }
+                assertThat(limiter.getStates().get(0).inFlight()).isEqualTo(1);
+            }
+            assertThat(limiter.getStates().get(0).inFlight()).isZero();
+            client.me();
+            assertThat(limiter.getStates().get(0).inFlight()).isZero();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.testdroid.api.upload;
+
+import okio.Buffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag(UNIT)
+class StreamingRequestBodyTest {
+
+    private static final byte[] CONTENT = new byte[StreamingRequestBody.CHUNK_SIZE * 2 + 10];
+
+    @Test
+    void writesStreamInChunksWithProgress() throws Exception {
+        List<Long> progress = new ArrayList<>();
+        StreamingRequestBody body = StreamingRequestBody
+                .create(new ByteArrayInputStream(CONTENT), "app.ipa", null, CONTENT.length)
+                .setProgressListener((written, total) -> progress.add(written));
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        assertThat(sink.readByteArray()).isEqualTo(CONTENT);
+        assertThat(progress).last().isEqualTo((long) CONTENT.length);
+        assertThat(body.contentLength()).isEqualTo(CONTENT.length);
+        assertThat(body.isOneShot()).isTrue();
+    }
+
+    @Test
+    void reopensPath(@TempDir Path directory) throws Exception {
+        Path path = Files.write(directory.resolve("results.zip"), CONTENT);
+        StreamingRequestBody body = StreamingRequestBody.create(path, "application/zip");
+        assertThat(body.isOneShot()).isFalse();
+        assertThat(body.getFileName()).isEqualTo("results.zip");
+        for (int i = 0; i < 2; i++) {
+            Buffer sink = new Buffer();
+            body.writeTo(sink);
+            assertThat(sink.size()).isEqualTo(CONTENT.length);
+        }
+    }
+
+    @Test
+    void cancels() {
+        StreamingRequestBody body = StreamingRequestBody.create(new ByteArrayInputStream(CONTENT), "app.apk", null, -1);
+        body.setProgressListener((written, total) -> body.cancel());
+        assertThrows(InterruptedIOException.class, () -> body.writeTo(new Buffer()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.testdroid.api.util;
+
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APIList;
+import com.testdroid.api.APISimpleList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
+
+import java.lang.reflect.Modifier;
+import java.util.stream.Collectors;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class EntityTypesTest {
+
+    @Test
+    void listsAllPublicEntityTypes() {
+        Reflections reflections = new Reflections(APIEntity.class.getPackage().getName());
+        assertThat(EntityTypes.ALL).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(reflections.getSubTypesOf(APIEntity.class).stream()
+                        .filter(type -> Modifier.isPublic(type.getModifiers()))
+                        .filter(type -> type.getTypeParameters().length == 0)
+                        .filter(type -> !type.isMemberClass() || Modifier.isStatic(type.getModifiers()))
+                        .filter(type -> type != APIList.class && type != APISimpleList.class)
+                        .collect(Collectors.toList()));
+    }
+}
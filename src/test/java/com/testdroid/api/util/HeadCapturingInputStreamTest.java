@@ -0,0 +1,30 @@
+package com.testdroid.api.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT)
+class HeadCapturingInputStreamTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "{\"id\":1}, 100, {\"id\":1}",
+            "{\"id\":1}, 8, {\"id\":1}",
+            "{\"id\":1}, 4, {\"id...",
+    })
+    void getHead(String content, int limit, String expected) throws IOException {
+        HeadCapturingInputStream stream = new HeadCapturingInputStream(
+                new ByteArrayInputStream(content.getBytes(UTF_8)), limit);
+        assertThat(IOUtils.toString(stream, UTF_8)).isEqualTo(content);
+        assertThat(stream.getHead()).isEqualTo(expected);
+    }
+}
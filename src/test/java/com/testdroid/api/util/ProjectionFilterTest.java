@@ -0,0 +1,53 @@
+package com.testdroid.api.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.testdroid.api.APIList;
+import com.testdroid.api.model.APIDevice;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Tag(UNIT)
+class ProjectionFilterTest {
+
+    private static final String DEVICES = "{\"offset\":0,\"limit\":20,\"total\":2,\"data\":["
+            + "{\"id\":1,\"displayName\":\"Device 1\",\"online\":true,\"manufacturer\":\"Vendor\","
+            + "\"softwareVersion\":{\"id\":30,\"apiLevel\":30}},"
+            + "{\"id\":2,\"displayName\":\"Device 2\",\"online\":false,\"browsers\":[{\"id\":3}]}]}";
+
+    private final ObjectReader reader = SerializationRegistry.getReader(
+            TypeReferenceFactory.getListTypeRef(APIDevice.class));
+
+    @Test
+    void skipsUnrequestedFieldsOfEntities() throws Exception {
+        APIList<APIDevice> list;
+        try (JsonParser parser = ProjectionFilter.filter(reader.createParser(DEVICES), Set.of("displayName"))) {
+            list = reader.readValue(parser);
+        }
+        assertThat(list.getTotal()).isEqualTo(2);
+        assertThat(list.getLimit()).isEqualTo(20);
+        assertThat(list.getData()).extracting(APIDevice::getId, APIDevice::getDisplayName)
+                .containsExactly(tuple(1L, "Device 1"), tuple(2L, "Device 2"));
+        assertThat(list.getData()).allSatisfy(device -> {
+            assertThat(device.getManufacturer()).isNull();
+            assertThat(device.getSoftwareVersion()).isNull();
+            assertThat(device.isOnline()).isNull();
+        });
+    }
+
+    @Test
+    void keepsEmptyList() throws Exception {
+        APIList<APIDevice> list;
+        try (JsonParser parser = ProjectionFilter.filter(reader.createParser("{\"total\":0,\"data\":[]}"),
+                Set.of("displayName"))) {
+            list = reader.readValue(parser);
+        }
+        assertThat(list.getData()).isEmpty();
+    }
+}
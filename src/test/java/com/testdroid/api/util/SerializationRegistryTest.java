@@ -0,0 +1,65 @@
+package com.testdroid.api.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.testdroid.api.APIEntity;
+import com.testdroid.api.APIKeyClient;
+import com.testdroid.api.APIList;
+import com.testdroid.api.model.APIDevice;
+import com.testdroid.api.model.APIDeviceSession;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.testdroid.cloud.test.categories.TestTags.UNIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Tag(UNIT)
+class SerializationRegistryTest {
+
+    @Test
+    void cachesReadersAndWriters() {
+        TypeReference<APIList<APIDevice>> type = TypeReferenceFactory.getListTypeRef(APIDevice.class);
+        assertThat(SerializationRegistry.getReader(type)).isSameAs(SerializationRegistry.getReader(type));
+        assertThat(SerializationRegistry.getWriter(APIDevice.class))
+                .isSameAs(SerializationRegistry.getWriter(APIDevice.class));
+    }
+
+    @Test
+    void doesNotWarmUpUnlessRequested() {
+        new APIKeyClient("http://localhost", "key");
+        assertThat(SerializationRegistry.isWarmUpStarted()).isFalse();
+    }
+
+    @Test
+    void roundTripsList() throws Exception {
+        SerializationRegistry.warmUp();
+        APIList<APIDeviceSession> list = SerializationRegistry
+                .getReader(TypeReferenceFactory.getListTypeRef(APIDeviceSession.class))
+                .readValue("{\"data\":[{\"id\":1,\"state\":\"SUCCEEDED\"}],\"total\":1}");
+        assertThat(list.getData()).extracting(APIDeviceSession::getState)
+                .containsExactly(APIDeviceSession.State.SUCCEEDED);
+        String json = SerializationRegistry.getWriter(APIDeviceSession.class).writeValueAsString(list.getData().get(0));
+        assertThat(json).contains("\"state\":\"SUCCEEDED\"");
+    }
+
+    @Test
+    void readsWithHighThroughputMapper() throws Exception {
+        ObjectMapper mapper = APIEntity.createHighThroughputMapper();
+        assertThat(mapper.getFactory().isEnabled(JsonFactory.Feature.INTERN_FIELD_NAMES)).isFalse();
+        assertThat(mapper.getRegisteredModuleIds()).contains(new BlackbirdModule().getTypeId());
+        TypeReference<APIList<APIDeviceSession>> type = TypeReferenceFactory.getListTypeRef(APIDeviceSession.class);
+        try {
+            SerializationRegistry.setObjectMapper(mapper);
+            APIList<APIDeviceSession> list = SerializationRegistry.getReader(type)
+                    .readValue("{\"data\":[{\"id\":1,\"state\":\"SUCCEEDED\",\"unknown\":true}],\"total\":1}");
+            assertThat(list.getData()).extracting(APIDeviceSession::getId, APIDeviceSession::getState)
+                    .containsExactly(tuple(1L, APIDeviceSession.State.SUCCEEDED));
+            assertThat(SerializationRegistry.getObjectMapper()).isSameAs(mapper);
+        } finally {
+            SerializationRegistry.setObjectMapper(APIEntity.OBJECT_MAPPER);
+        }
+    }
+}